@@ -0,0 +1,75 @@
+package com.aut.edutech.carga;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+
+// Parametros del generador, leidos de las propiedades de sistema carga.* que pasa el perfil carga de Maven.
+// tasa = 0: cada hilo lanza la siguiente peticion al terminar la anterior (bucle cerrado); tasa > 0: peticiones/s
+// totales a intervalos fijos, midiendo desde el instante previsto para no ocultar las esperas (omision coordinada).
+// La ejecucion falla si empeora respecto a lineaBase (resumen JSON guardado de una ejecucion anterior con la misma
+// carga): un p99 o un rendimiento por operacion mas de degradacionMaxima (fraccion) peor. actualizarLineaBase
+// reescribe ese fichero con el resultado en lugar de comparar. p99Maximo (ms por operacion), erroresMaximo
+// (fraccion) y rendimientoMinimo (peticiones/s) son umbrales absolutos opcionales.
+// Con la misma semilla cada hilo repite la misma secuencia de operaciones e ids.
+public record ConfiguracionCarga(
+        Duration duracion,
+        Duration calentamiento,
+        int hilos,
+        double tasa,
+        int tickets,
+        double zipf,
+        Map<Operacion, Integer> mezcla,
+        Map<Operacion, Double> p99Maximo,
+        double erroresMaximo,
+        double rendimientoMinimo,
+        long semilla,
+        Path lineaBase,
+        double degradacionMaxima,
+        boolean actualizarLineaBase) {
+
+    public static ConfiguracionCarga desde(Properties propiedades) {
+        return new ConfiguracionCarga(
+            Duration.parse(propiedades.getProperty("carga.duracion", "PT30S")),
+            Duration.parse(propiedades.getProperty("carga.calentamiento", "PT10S")),
+            Integer.parseInt(propiedades.getProperty("carga.hilos", "16")),
+            Double.parseDouble(propiedades.getProperty("carga.tasa", "0")),
+            Integer.parseInt(propiedades.getProperty("carga.tickets", "5000")),
+            Double.parseDouble(propiedades.getProperty("carga.zipf", "1.1")),
+            porOperacion(propiedades.getProperty("carga.mezcla",
+                "obtener=50,listar=15,crear=10,asignar=10,categorizar=5,actualizar=10"), Integer::valueOf),
+            porOperacion(propiedades.getProperty("carga.p99-maximo", ""), Double::valueOf),
+            Double.parseDouble(propiedades.getProperty("carga.errores-maximo", "0.01")),
+            Double.parseDouble(propiedades.getProperty("carga.rendimiento-minimo", "0")),
+            Long.parseLong(propiedades.getProperty("carga.semilla", "42")),
+            Path.of(propiedades.getProperty("carga.linea-base", "src/carga/linea-base.json")),
+            Double.parseDouble(propiedades.getProperty("carga.degradacion-maxima", "1.0")),
+            Boolean.parseBoolean(propiedades.getProperty("carga.actualizar-linea-base", "false")));
+    }
+
+    // lo que debe coincidir para que dos ejecuciones sean comparables
+    public String descripcion() {
+        return "%s tras %s de calentamiento, %d hilos, %s, %d tickets, zipf %.2f, mezcla %s, semilla %d".formatted(
+            duracion, calentamiento, hilos, tasa > 0 ? tasa + " pet/s" : "bucle cerrado", tickets, zipf, mezcla,
+            semilla);
+    }
+
+    // "obtener=50,listar=15": las claves son los nombres de Operacion en minusculas
+    private static <T> Map<Operacion, T> porOperacion(String valor, Function<String, T> conversion) {
+        Map<Operacion, T> resultado = new EnumMap<>(Operacion.class);
+        for (String par : valor.split(",")) {
+            if (par.isBlank()) {
+                continue;
+            }
+            String[] partes = par.split("=", 2);
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Se esperaba operacion=valor: " + par);
+            }
+            resultado.put(Operacion.valueOf(partes[0].trim().toUpperCase()), conversion.apply(partes[1].trim()));
+        }
+        return resultado;
+    }
+}
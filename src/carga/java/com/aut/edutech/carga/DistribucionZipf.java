@@ -0,0 +1,31 @@
+package com.aut.edutech.carga;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// Rango 0..n-1 con probabilidad proporcional a 1/(rango+1)^exponente: unos pocos tickets concentran la mayoria de
+// las lecturas y cambios, como los abiertos recientemente. Con exponente 0 la distribucion es uniforme.
+public class DistribucionZipf {
+
+    private final double[] acumulada;
+
+    public DistribucionZipf(int n, double exponente) {
+        if (n < 1) {
+            throw new IllegalArgumentException("La distribucion necesita al menos un elemento");
+        }
+        acumulada = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1 / Math.pow(i + 1, exponente);
+            acumulada[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            acumulada[i] /= total;
+        }
+    }
+
+    public int siguiente(RandomGenerator aleatorio) {
+        int i = Arrays.binarySearch(acumulada, aleatorio.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, acumulada.length - 1);
+    }
+}
@@ -0,0 +1,191 @@
+package com.aut.edutech.carga;
+
+import com.aut.edutech.SoporteApplication;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.service.TicketService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// Prueba de carga sin red externa: arranca la aplicacion completa sobre la H2 embebida de src/test/resources,
+// siembra 'tickets' y reproduce por HTTP la mezcla de operaciones con ids sesgados (Zipf: los tickets mas
+// recientes son los mas solicitados). Imprime rendimiento y percentiles por operacion, deja los histogramas y el
+// resumen en target/carga y termina con codigo 1 si empeora respecto a la linea base o incumple algun umbral,
+// lo que hace fallar mvn -Pcarga verify.
+public class GeneradorCarga {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static void main(String[] args) throws Exception {
+        ConfiguracionCarga configuracion = ConfiguracionCarga.desde(System.getProperties());
+        List<String> incumplidos;
+        try (ConfigurableApplicationContext contexto = arrancar(args)) {
+            long[] ids = sembrar(contexto.getBean(TicketService.class), configuracion);
+            URI base = URI.create("http://localhost:"
+                + ((WebServerApplicationContext) contexto).getWebServer().getPort() + "/");
+
+            Informe informe = ejecutar(base, ids, configuracion);
+
+            System.out.printf("%nCarga: %s%n", configuracion.descripcion());
+            informe.imprimir(System.out, configuracion.duracion());
+            Path directorio = Path.of(System.getProperty("carga.directorio", "target/carga"));
+            informe.guardar(directorio);
+            Informe.LineaBase resultado = new Informe.LineaBase(configuracion.descripcion(),
+                informe.resumen(configuracion.duracion()));
+            JSON.writeValue(directorio.resolve("resumen.json").toFile(), resultado);
+            incumplidos = new ArrayList<>(informe.incumplimientos(configuracion, configuracion.duracion()));
+            incumplidos.addAll(compararConLineaBase(informe, resultado, configuracion));
+        }
+        if (!incumplidos.isEmpty()) {
+            System.err.println("Umbrales incumplidos:");
+            incumplidos.forEach(incumplido -> System.err.println("  " + incumplido));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    // la linea base solo vale para la misma carga; con otros parametros se avisa y no se compara
+    private static List<String> compararConLineaBase(Informe informe, Informe.LineaBase resultado,
+            ConfiguracionCarga configuracion) throws IOException {
+        Path fichero = configuracion.lineaBase();
+        if (configuracion.actualizarLineaBase()) {
+            JSON.writeValue(fichero.toFile(), resultado);
+            System.out.println("Linea base actualizada: " + fichero);
+            return List.of();
+        }
+        if (!Files.exists(fichero)) {
+            System.out.println("Sin linea base en " + fichero + "; solo se aplican los umbrales absolutos");
+            return List.of();
+        }
+        Informe.LineaBase base = JSON.readValue(fichero.toFile(), Informe.LineaBase.class);
+        if (!base.carga().equals(configuracion.descripcion())) {
+            System.out.println("La linea base es de otra carga (" + base.carga() + "); no se compara");
+            return List.of();
+        }
+        return informe.degradaciones(base, configuracion.duracion(), configuracion.degradacionMaxima());
+    }
+
+    // sin limitador: se mide la capacidad del servicio, no la cuota de un cliente
+    private static ConfigurableApplicationContext arrancar(String[] args) {
+        String[] propiedades = {
+            "--server.port=0",
+            "--logging.level.root=WARN",
+            "--soporte.limite.habilitado=false",
+            "--spring.datasource.url=jdbc:h2:mem:carga;MODE=MySQL;DB_CLOSE_DELAY=-1"
+        };
+        return new SpringApplicationBuilder(SoporteApplication.class)
+            .run(Stream.concat(Stream.of(propiedades), Stream.of(args)).toArray(String[]::new));
+    }
+
+    // ids en orden de creacion: el rango 0 de la distribucion es el ticket mas reciente
+    private static long[] sembrar(TicketService ticketService, ConfiguracionCarga configuracion) {
+        SplittableRandom aleatorio = new SplittableRandom(configuracion.semilla());
+        ticketService.crearTickets(Stream.generate(() -> Operacion.ticket(aleatorio))
+            .limit(configuracion.tickets()).iterator());
+        List<Long> ids = new ArrayList<>(configuracion.tickets());
+        Long despuesDe = null;
+        for (List<Ticket> pagina = ticketService.obtenerTicketsDesde(null, 1000); !pagina.isEmpty();
+                pagina = ticketService.obtenerTicketsDesde(despuesDe, 1000)) {
+            pagina.forEach(ticket -> ids.add(ticket.getId()));
+            despuesDe = pagina.get(pagina.size() - 1).getId();
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static Informe ejecutar(URI base, long[] ids, ConfiguracionCarga configuracion) throws Exception {
+        HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        DistribucionZipf zipf = new DistribucionZipf(ids.length, configuracion.zipf());
+        Operacion[] ruleta = ruleta(configuracion);
+        long inicioMedida = System.nanoTime() + configuracion.calentamiento().toNanos();
+        long fin = inicioMedida + configuracion.duracion().toNanos();
+        long intervalo = configuracion.tasa() > 0 ? (long) (configuracion.hilos() * 1e9 / configuracion.tasa()) : 0;
+
+        ExecutorService hilos = Executors.newFixedThreadPool(configuracion.hilos());
+        try {
+            List<Future<Informe>> parciales = new ArrayList<>();
+            for (int i = 0; i < configuracion.hilos(); i++) {
+                SplittableRandom aleatorio = new SplittableRandom(configuracion.semilla() + i);
+                parciales.add(hilos.submit(() -> {
+                    Informe informe = new Informe();
+                    long previsto = System.nanoTime();
+                    while (true) {
+                        if (intervalo > 0) {
+                            previsto += intervalo;
+                            esperarHasta(previsto);
+                        } else {
+                            previsto = System.nanoTime();
+                        }
+                        if (previsto >= fin) {
+                            return informe;
+                        }
+                        Operacion operacion = ruleta[aleatorio.nextInt(ruleta.length)];
+                        long id = ids[ids.length - 1 - zipf.siguiente(aleatorio)];
+                        int estado = enviar(cliente, operacion, base, id, aleatorio);
+                        if (previsto >= inicioMedida) {
+                            informe.de(operacion).registrar(estado, (System.nanoTime() - previsto) / 1000);
+                        }
+                    }
+                }));
+            }
+            Informe total = new Informe();
+            for (Future<Informe> parcial : parciales) {
+                total.sumar(parcial.get());
+            }
+            return total;
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    // cada operacion aparece tantas veces como su peso: elegir una posicion al azar respeta la mezcla
+    private static Operacion[] ruleta(ConfiguracionCarga configuracion) {
+        List<Operacion> ruleta = new ArrayList<>();
+        configuracion.mezcla().forEach((operacion, peso) -> {
+            for (int i = 0; i < peso; i++) {
+                ruleta.add(operacion);
+            }
+        });
+        if (ruleta.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla de operaciones esta vacia");
+        }
+        return ruleta.toArray(Operacion[]::new);
+    }
+
+    // 0 = sin respuesta (conexion rechazada, tiempo agotado): cuenta como error
+    private static int enviar(HttpClient cliente, Operacion operacion, URI base, long id, SplittableRandom aleatorio)
+            throws InterruptedException {
+        try {
+            return cliente.send(operacion.peticion(base, id, aleatorio), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void esperarHasta(long instante) {
+        for (long espera = instante - System.nanoTime(); espera > 0; espera = instante - System.nanoTime()) {
+            LockSupport.parkNanos(espera);
+        }
+    }
+}
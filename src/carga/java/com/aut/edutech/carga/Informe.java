@@ -0,0 +1,171 @@
+package com.aut.edutech.carga;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Resultados por operacion de todos los hilos: latencias en microsegundos y respuestas por clase.
+// 409 cuenta aparte como conflicto. Solo lo puede dar actualizar: PUT reemplaza el ticket con bloqueo optimista
+// y con ids sesgados dos reemplazos simultaneos del mismo ticket chocan. Asignar y categorizar sin If-Match
+// bloquean la fila y no chocan, asi que un 409 en ellas cuenta como error.
+public class Informe {
+
+    static final String TOTAL = "total";
+    static final long LATENCIA_MAXIMA_US = Duration.ofMinutes(1).toNanos() / 1000;
+
+    private final Map<Operacion, Resultado> resultados = new EnumMap<>(Operacion.class);
+
+    public Resultado de(Operacion operacion) {
+        return resultados.computeIfAbsent(operacion, o -> new Resultado(o == Operacion.ACTUALIZAR));
+    }
+
+    public void sumar(Informe otro) {
+        otro.resultados.forEach((operacion, resultado) -> de(operacion).sumar(resultado));
+    }
+
+    public void imprimir(PrintStream salida, Duration medido) {
+        double segundos = medido.toNanos() / 1e9;
+        salida.printf("%-12s %9s %10s %9s %9s %9s %9s %9s %9s %9s%n", "operacion", "peticiones", "pet/s",
+            "conflicto", "errores", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Resultado total = new Resultado(true);
+        resultados.forEach((operacion, resultado) -> {
+            imprimir(salida, operacion.clave(), resultado, segundos);
+            total.sumar(resultado);
+        });
+        imprimir(salida, "total", total, segundos);
+    }
+
+    private static void imprimir(PrintStream salida, String nombre, Resultado r, double segundos) {
+        Histogram h = r.latencias;
+        salida.printf("%-12s %9d %10.1f %9d %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n", nombre, r.peticiones(),
+            r.peticiones() / segundos, r.conflictos, r.errores, ms(h, 50), ms(h, 90), ms(h, 99), ms(h, 99.9),
+            h.getMaxValue() / 1000.0);
+    }
+
+    // un fichero .hgrm por operacion en 'directorio', para comparar ejecuciones con HdrHistogram Plotter
+    public void guardar(Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        for (Map.Entry<Operacion, Resultado> e : resultados.entrySet()) {
+            try (PrintStream salida = new PrintStream(Files.newOutputStream(
+                    directorio.resolve(e.getKey().clave() + ".hgrm")))) {
+                e.getValue().latencias.outputPercentileDistribution(salida, 1000.0);
+            }
+        }
+    }
+
+    public List<String> incumplimientos(ConfiguracionCarga configuracion, Duration medido) {
+        List<String> incumplidos = new ArrayList<>();
+        Resultado total = new Resultado(true);
+        resultados.forEach((operacion, resultado) -> {
+            total.sumar(resultado);
+            Double maximo = configuracion.p99Maximo().get(operacion);
+            double p99 = ms(resultado.latencias, 99);
+            if (maximo != null && p99 > maximo) {
+                incumplidos.add("p99 de %s: %.2f ms > %.2f ms".formatted(operacion.clave(), p99, maximo));
+            }
+        });
+        double errores = total.peticiones() == 0 ? 0 : (double) total.errores / total.peticiones();
+        if (errores > configuracion.erroresMaximo()) {
+            incumplidos.add("errores: %.2f%% > %.2f%%".formatted(errores * 100, configuracion.erroresMaximo() * 100));
+        }
+        double rendimiento = total.peticiones() / (medido.toNanos() / 1e9);
+        if (rendimiento < configuracion.rendimientoMinimo()) {
+            incumplidos.add("rendimiento: %.1f pet/s < %.1f pet/s".formatted(rendimiento, configuracion.rendimientoMinimo()));
+        }
+        return incumplidos;
+    }
+
+    // p99 y rendimiento por operacion y del total; es lo que se guarda como linea base
+    public Map<String, Resumen> resumen(Duration medido) {
+        double segundos = medido.toNanos() / 1e9;
+        Map<String, Resumen> resumen = new LinkedHashMap<>();
+        Resultado total = new Resultado(true);
+        resultados.forEach((operacion, resultado) -> {
+            resumen.put(operacion.clave(), Resumen.de(resultado, segundos));
+            total.sumar(resultado);
+        });
+        resumen.put(TOTAL, Resumen.de(total, segundos));
+        return resumen;
+    }
+
+    // p99 mas de 'degradacion' por encima de la linea base, o rendimiento por debajo de base / (1 + degradacion)
+    public List<String> degradaciones(LineaBase base, Duration medido, double degradacion) {
+        List<String> degradadas = new ArrayList<>();
+        resumen(medido).forEach((clave, actual) -> {
+            Resumen anterior = base.operaciones().get(clave);
+            if (anterior == null) {
+                return;
+            }
+            double p99Maximo = anterior.p99Ms() * (1 + degradacion);
+            if (actual.p99Ms() > p99Maximo) {
+                degradadas.add("p99 de %s: %.2f ms > %.2f ms (linea base %.2f ms)".formatted(clave, actual.p99Ms(),
+                    p99Maximo, anterior.p99Ms()));
+            }
+            double rendimientoMinimo = anterior.peticionesPorSegundo() / (1 + degradacion);
+            if (actual.peticionesPorSegundo() < rendimientoMinimo) {
+                degradadas.add("rendimiento de %s: %.1f pet/s < %.1f pet/s (linea base %.1f pet/s)".formatted(clave,
+                    actual.peticionesPorSegundo(), rendimientoMinimo, anterior.peticionesPorSegundo()));
+            }
+        });
+        return degradadas;
+    }
+
+    private static double ms(Histogram h, double percentil) {
+        return h.getValueAtPercentile(percentil) / 1000.0;
+    }
+
+    public static class Resultado {
+        private final Histogram latencias = new Histogram(LATENCIA_MAXIMA_US, 3);
+        private final boolean admiteConflicto;
+        private long correctas;
+        private long conflictos;
+        private long errores;
+
+        Resultado(boolean admiteConflicto) {
+            this.admiteConflicto = admiteConflicto;
+        }
+
+        public void registrar(int estado, long latenciaUs) {
+            latencias.recordValue(Math.min(latenciaUs, LATENCIA_MAXIMA_US));
+            if (estado >= 200 && estado < 400) {
+                correctas++;
+            } else if (estado == 409 && admiteConflicto) {
+                conflictos++;
+            } else {
+                errores++;
+            }
+        }
+
+        long peticiones() {
+            return correctas + conflictos + errores;
+        }
+
+        private void sumar(Resultado otro) {
+            latencias.add(otro.latencias);
+            correctas += otro.correctas;
+            conflictos += otro.conflictos;
+            errores += otro.errores;
+        }
+    }
+
+    public record Resumen(double p99Ms, double peticionesPorSegundo) {
+
+        static Resumen de(Resultado resultado, double segundos) {
+            return new Resumen(Math.round(ms(resultado.latencias, 99) * 100) / 100.0,
+                Math.round(resultado.peticiones() / segundos * 10) / 10.0);
+        }
+    }
+
+    // resumen de una ejecucion de referencia y la carga con que se obtuvo
+    public record LineaBase(String carga, Map<String, Resumen> operaciones) {
+    }
+}
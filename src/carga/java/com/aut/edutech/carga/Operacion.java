@@ -0,0 +1,111 @@
+package com.aut.edutech.carga;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+// Operaciones de TicketController que reproduce el generador; 'id' es el ticket elegido por la distribucion Zipf
+public enum Operacion {
+    CREAR {
+        @Override
+        HttpRequest peticion(URI base, long id, RandomGenerator aleatorio) {
+            return json(base.resolve("/api/tickets")).POST(cuerpo(json(aleatorio))).build();
+        }
+    },
+    LISTAR {
+        @Override
+        HttpRequest peticion(URI base, long id, RandomGenerator aleatorio) {
+            return nueva(base.resolve("/api/tickets?limite=50&despuesDe=" + id)).GET().build();
+        }
+    },
+    OBTENER {
+        @Override
+        HttpRequest peticion(URI base, long id, RandomGenerator aleatorio) {
+            return nueva(base.resolve("/api/tickets/" + id)).GET().build();
+        }
+    },
+    ASIGNAR {
+        @Override
+        HttpRequest peticion(URI base, long id, RandomGenerator aleatorio) {
+            return nueva(base.resolve("/api/tickets/" + id + "/asignar?usuarioId="
+                + AGENTES[aleatorio.nextInt(AGENTES.length)])).PUT(HttpRequest.BodyPublishers.noBody()).build();
+        }
+    },
+    CATEGORIZAR {
+        @Override
+        HttpRequest peticion(URI base, long id, RandomGenerator aleatorio) {
+            return nueva(base.resolve("/api/tickets/" + id + "/categorizar?categoria="
+                + categoria(aleatorio))).PUT(HttpRequest.BodyPublishers.noBody()).build();
+        }
+    },
+    // el estado se mantiene ABIERTO: la mezcla no incluye transiciones y un cambio de estado invalido daria 409
+    ACTUALIZAR {
+        @Override
+        HttpRequest peticion(URI base, long id, RandomGenerator aleatorio) {
+            return json(base.resolve("/api/tickets/" + id)).PUT(cuerpo(json(aleatorio))).build();
+        }
+    };
+
+    private static final Duration TIEMPO_MAXIMO = Duration.ofSeconds(30);
+    private static final String[] AGENTES = {"ana", "luis", "marta", "pedro", "sofia"};
+    private static final String[] EQUIPOS = {"Impresora", "Portatil", "Correo", "VPN", "Monitor", "Office", "Wifi",
+        "Telefono", "Escaner", "Servidor", "Teclado", "Proyector"};
+    private static final String[] PROBLEMAS = {"no enciende", "no conecta", "va lento", "da error al iniciar",
+        "pide credenciales", "se reinicia solo", "no sincroniza", "no responde"};
+    private static final String[] PALABRAS = {"desde", "ayer", "esta", "manana", "tras", "la", "ultima",
+        "actualizacion", "en", "sala", "planta", "oficina", "reunion", "cliente", "urgente", "varios", "usuarios",
+        "pantalla", "azul", "mensaje", "cable", "red", "contrasena", "cuenta", "bloqueada", "licencia", "caducada",
+        "disco", "lleno", "bateria", "ruido", "papel", "atascado", "certificado", "navegador", "adjunto"};
+
+    abstract HttpRequest peticion(URI base, long id, RandomGenerator aleatorio);
+
+    public String clave() {
+        return name().toLowerCase();
+    }
+
+    // titulo corto de un vocabulario reducido y descripcion de palabras al azar: los casi duplicados aparecen
+    // con la frecuencia de un servicio real en vez de enlazarse todos los tickets entre si
+    static Ticket ticket(RandomGenerator aleatorio) {
+        String titulo = EQUIPOS[aleatorio.nextInt(EQUIPOS.length)] + " " + PROBLEMAS[aleatorio.nextInt(PROBLEMAS.length)];
+        StringBuilder descripcion = new StringBuilder(titulo);
+        for (int i = 0; i < 12; i++) {
+            descripcion.append(' ').append(PALABRAS[aleatorio.nextInt(PALABRAS.length)]);
+        }
+        return Ticket.builder()
+            .titulo(titulo)
+            .descripcionTicket(descripcion.toString())
+            .estadoTicket(EstadoTicket.ABIERTO)
+            .categoriaTicket(categoria(aleatorio))
+            .creadoPor("usuario" + aleatorio.nextInt(200))
+            .build();
+    }
+
+    private static String json(RandomGenerator aleatorio) {
+        Ticket ticket = ticket(aleatorio);
+        return """
+            {"titulo":"%s","descripcionTicket":"%s","estadoTicket":"ABIERTO","categoriaTicket":"%s","creadoPor":"%s"}"""
+            .formatted(ticket.getTitulo(), ticket.getDescripcionTicket(), ticket.getCategoriaTicket(), ticket.getCreadoPor());
+    }
+
+    private static HttpRequest.Builder nueva(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(TIEMPO_MAXIMO);
+    }
+
+    private static HttpRequest.Builder json(URI uri) {
+        return nueva(uri).header("Content-Type", "application/json");
+    }
+
+    private static HttpRequest.BodyPublisher cuerpo(String json) {
+        return HttpRequest.BodyPublishers.ofString(json);
+    }
+
+    private static CategoriaTicket categoria(RandomGenerator aleatorio) {
+        CategoriaTicket[] categorias = CategoriaTicket.values();
+        return categorias[aleatorio.nextInt(categorias.length)];
+    }
+}
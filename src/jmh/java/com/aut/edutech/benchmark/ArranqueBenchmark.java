@@ -0,0 +1,57 @@
+package com.aut.edutech.benchmark;
+
+import com.aut.edutech.SoporteApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Arranque en frio de la aplicacion completa (Tomcat incluido) contra H2 en modo MySQL con el esquema de Flyway:
+// 'defecto' valida el esquema con Hibernate y crea todos los beans y springdoc; 'prod' usa el perfil de arranque
+// rapido. Cada fork es una JVM nueva y mide un unico arranque, asi que no debe haber iteraciones de calentamiento.
+// Ejemplo: mvn -Pbenchmark verify -Djmh.args="Arranque -f 5 -wi 0 -i 1"
+// Con el archivo CDS del perfil cds: -Djmh.args="Arranque -f 5 -wi 0 -i 1 -jvmArgsAppend -XX:SharedArchiveFile=..."
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(5)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ArranqueBenchmark {
+
+    @Param({"defecto", "prod"})
+    private String perfil;
+
+    private ConfigurableApplicationContext contexto;
+
+    @TearDown(Level.Iteration)
+    public void detener() {
+        if (contexto != null) {
+            contexto.close();
+        }
+    }
+
+    // argumentos de linea de comandos: deben prevalecer sobre el application.properties de src/test/resources
+    @Benchmark
+    public ConfigurableApplicationContext arrancar() {
+        List<String> argumentos = new ArrayList<>(List.of(
+            "--logging.level.root=WARN",
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:arranque;MODE=MySQL;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+            "--spring.flyway.enabled=true"));
+        if ("prod".equals(perfil)) {
+            argumentos.addAll(List.of("--spring.profiles.active=prod", "--soporte.outbox.publicador=memoria"));
+        } else {
+            argumentos.addAll(List.of(
+                "--spring.jpa.hibernate.ddl-auto=validate",
+                "--springdoc.api-docs.enabled=true",
+                "--springdoc.swagger-ui.enabled=true"));
+        }
+        contexto = new SpringApplicationBuilder(SoporteApplication.class).run(argumentos.toArray(String[]::new));
+        return contexto;
+    }
+}
@@ -0,0 +1,44 @@
+package com.aut.edutech.benchmark;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// tickets sinteticos con un reparto fijo de estados, categorias y agentes para que las corridas sean comparables
+final class DatosBenchmark {
+
+    static final int AGENTES = 20;
+
+    private DatosBenchmark() {
+    }
+
+    static Ticket ticket(long i) {
+        Ticket ticket = new Ticket();
+        ticket.setTitulo("Ticket " + i);
+        ticket.setDescripcionTicket("No puedo entrar a la plataforma desde el laboratorio " + (i % 40)
+            + ", el sistema indica que la sesion expiro y no deja volver a ingresar.");
+        ticket.setEstadoTicket(EstadoTicket.values()[(int) (i % EstadoTicket.values().length)]);
+        ticket.setCategoriaTicket(CategoriaTicket.values()[(int) (i % CategoriaTicket.values().length)]);
+        ticket.setAsignadoA(agente(i));
+        ticket.setCreadoPor("alumno-" + (i % 500));
+        return ticket;
+    }
+
+    static List<Ticket> tickets(int cantidad) {
+        List<Ticket> tickets = new ArrayList<>(cantidad);
+        for (long i = 1; i <= cantidad; i++) {
+            Ticket ticket = ticket(i);
+            ticket.setId(i);
+            ticket.setVersion(0L);
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    static String agente(long i) {
+        return "agente-" + (i % AGENTES);
+    }
+}
@@ -0,0 +1,72 @@
+package com.aut.edutech.benchmark;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.service.DetectorDuplicados;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Coste por alta de la deteccion de duplicados (enlazar + indexar) con miles de tickets abiertos en el indice;
+// el objetivo es quedar por debajo del milisegundo.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DetectorDuplicadosBenchmark {
+
+    private static final String[] PALABRAS = {
+        "no", "puedo", "entrar", "plataforma", "error", "pantalla", "correo", "impresora", "red", "clave",
+        "usuario", "bloqueado", "lento", "servidor", "aula", "virtual", "curso", "nota", "archivo", "subir",
+        "video", "camara", "microfono", "licencia", "instalar", "actualizar", "mensaje", "acceso", "wifi", "vpn"};
+
+    @Param({"1000", "5000"})
+    private int abiertos;
+
+    private DetectorDuplicados detector;
+    private SplittableRandom aleatorio;
+    private long siguienteId;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        detector = new DetectorDuplicados();
+        ReflectionTestUtils.setField(detector, "habilitado", true);
+        ReflectionTestUtils.setField(detector, "ventana", Duration.ofDays(1));
+        ReflectionTestUtils.setField(detector, "umbral", 0.6);
+        aleatorio = new SplittableRandom(42);
+        for (siguienteId = 1; siguienteId <= abiertos; siguienteId++) {
+            detector.indexar(ticket(siguienteId));
+        }
+    }
+
+    @Benchmark
+    public Long crear() {
+        Ticket ticket = ticket(null);
+        detector.enlazar(ticket);
+        ticket.setId(siguienteId++);
+        detector.indexar(ticket);
+        return ticket.getTicketPadreId();
+    }
+
+    private Ticket ticket(Long id) {
+        CategoriaTicket[] categorias = CategoriaTicket.values();
+        return Ticket.builder()
+            .id(id)
+            .titulo(frase(4))
+            .descripcionTicket(frase(15))
+            .categoriaTicket(categorias[aleatorio.nextInt(categorias.length)])
+            .creadoEn(Instant.now())
+            .build();
+    }
+
+    private String frase(int palabras) {
+        StringBuilder frase = new StringBuilder();
+        for (int i = 0; i < palabras; i++) {
+            frase.append(PALABRAS[aleatorio.nextInt(PALABRAS.length)]).append(' ');
+        }
+        return frase.toString();
+    }
+}
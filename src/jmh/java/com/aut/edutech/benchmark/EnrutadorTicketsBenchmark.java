@@ -0,0 +1,53 @@
+package com.aut.edutech.benchmark;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.service.EnrutadorTickets;
+import com.aut.edutech.service.PropiedadesEnrutamiento;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Throughput del enrutado con varios hilos compitiendo por el mismo pool; el objetivo es >= 10k tickets/s,
+// asi que cualquier resultado por encima de 0.01 ops/us deja margen de sobra.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class EnrutadorTicketsBenchmark {
+
+    @Param({"MENOS_CARGADO", "ROUND_ROBIN"})
+    private PropiedadesEnrutamiento.Estrategia estrategia;
+
+    @Param({"5", "50"})
+    private int agentes;
+
+    private EnrutadorTickets enrutador;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        List<String> pool = IntStream.range(0, agentes).mapToObj(i -> "agente" + i).toList();
+        enrutador = new EnrutadorTickets();
+        ReflectionTestUtils.setField(enrutador, "propiedades",
+            new PropiedadesEnrutamiento(estrategia, Map.of(CategoriaTicket.SOFTWARE, pool)));
+        reiniciarCargas();
+    }
+
+    // evita que los contadores crezcan sin limite entre iteraciones
+    @Setup(Level.Iteration)
+    public void reiniciarCargas() {
+        ReflectionTestUtils.invokeMethod(enrutador, "iniciar");
+    }
+
+    @Benchmark
+    public String enrutar() {
+        Ticket ticket = new Ticket();
+        ticket.setCategoriaTicket(CategoriaTicket.SOFTWARE);
+        enrutador.enrutar(ticket);
+        return ticket.getAsignadoA();
+    }
+}
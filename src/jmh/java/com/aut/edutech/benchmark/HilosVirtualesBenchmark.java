@@ -0,0 +1,121 @@
+package com.aut.edutech.benchmark;
+
+import com.aut.edutech.SoporteApplication;
+import com.aut.edutech.service.TicketService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+// Modelo de hilos de la aplicacion completa: rafagas de 'peticiones' GET /api/tickets/buscar simultaneas por HTTP
+// contra Tomcat, con el servicio, JPA y H2 reales. 'plataforma' deja el pool de 200 hilos de Tomcat y 'virtual'
+// arranca con spring.threads.virtual.enabled=true (requiere ejecutar sobre Java 21). 'latenciaMs' se anade a
+// cada sentencia SQL para imitar un MySQL remoto; el pool de conexiones se agranda para que el limite sea el
+// modelo de hilos y no Hikari (con -p pool=20 se ve el tope de la configuracion de produccion).
+// Ejemplo: mvn -Pbenchmark verify -Djmh.args="-f 1 -wi 2 -i 3 HilosVirtuales"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HilosVirtualesBenchmark {
+
+    private static final int TICKETS = 2_000;
+
+    // lo lee LatenciaJdbc, que Hibernate instancia por nombre de clase
+    private static volatile int latenciaSql;
+
+    @Param({"plataforma", "virtual"})
+    private String modo;
+
+    @Param({"400"})
+    private int peticiones;
+
+    @Param({"0", "20"})
+    private int latenciaMs;
+
+    @Param({"400"})
+    private int pool;
+
+    private ConfigurableApplicationContext contexto;
+    private HttpClient cliente;
+    private URI base;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        boolean virtual = "virtual".equals(modo);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("El modo 'virtual' requiere ejecutar los benchmarks sobre Java 21");
+        }
+        latenciaSql = 0;
+        contexto = new SpringApplicationBuilder(SoporteApplication.class)
+            .properties("logging.level.root=WARN")
+            .run("--server.port=0",
+                "--soporte.limite.habilitado=false",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.datasource.url=jdbc:h2:mem:hilos;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=" + pool,
+                "--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                    + LatenciaJdbc.class.getName());
+        contexto.getBean(TicketService.class).crearTickets(
+            LongStream.rangeClosed(1, TICKETS).mapToObj(DatosBenchmark::ticket).iterator());
+        base = URI.create("http://localhost:"
+            + ((WebServerApplicationContext) contexto).getWebServer().getPort() + "/api/tickets/buscar");
+        cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        latenciaSql = latenciaMs;
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        latenciaSql = 0;
+        contexto.close();
+    }
+
+    // una operacion = atender la rafaga completa; ops/s * peticiones = peticiones por segundo
+    @Benchmark
+    public int rafaga() {
+        List<CompletableFuture<HttpResponse<Void>>> respuestas = new ArrayList<>(peticiones);
+        for (int i = 0; i < peticiones; i++) {
+            String agente = DatosBenchmark.agente(ThreadLocalRandom.current().nextLong(DatosBenchmark.AGENTES));
+            HttpRequest peticion = HttpRequest.newBuilder(URI.create(base + "?asignadoA=" + agente + "&limite=20"))
+                .GET().build();
+            respuestas.add(cliente.sendAsync(peticion, HttpResponse.BodyHandlers.discarding()));
+        }
+        int correctas = 0;
+        for (CompletableFuture<HttpResponse<Void>> respuesta : respuestas) {
+            int estado = respuesta.join().statusCode();
+            if (estado != 200) {
+                throw new IllegalStateException("Respuesta inesperada: " + estado);
+            }
+            correctas++;
+        }
+        return correctas;
+    }
+
+    // bloquea el hilo de la peticion antes de cada sentencia, como haria la espera de red hacia MySQL
+    public static class LatenciaJdbc implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            int latencia = latenciaSql;
+            if (latencia > 0) {
+                try {
+                    Thread.sleep(latencia);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.aut.edutech.benchmark;
+
+import com.aut.edutech.assembler.TicketModelAssembler;
+import com.aut.edutech.controller.TicketController;
+import com.aut.edutech.model.Ticket;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TicketModelAssemblerBenchmark {
+
+    @Param({"true", "false"})
+    private boolean accionesEnListados;
+
+    private TicketModelAssembler assembler;
+    private List<Ticket> tickets;
+    private Ticket ticket;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        assembler = new TicketModelAssembler();
+        ReflectionTestUtils.setField(assembler, "accionesEnListados", accionesEnListados);
+        tickets = DatosBenchmark.tickets(500);
+        ticket = tickets.get(0);
+    }
+
+    // cada invocacion simula una peticion nueva, como en produccion
+    @Setup(Level.Invocation)
+    public void nuevaPeticion() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @TearDown(Level.Invocation)
+    public void terminarPeticion() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<Ticket> toModel() {
+        return assembler.toModel(ticket);
+    }
+
+    @Benchmark
+    public List<EntityModel<Ticket>> listadoDe500() {
+        return tickets.stream().map(assembler::toModelEnListado).toList();
+    }
+
+    // referencia: el coste de un solo enlace construido con linkTo(methodOn(...))
+    @Benchmark
+    public Link enlaceConLinkTo() {
+        return linkTo(methodOn(TicketController.class).obtenerTicketPorId(ticket.getId(), null)).withSelfRel();
+    }
+}
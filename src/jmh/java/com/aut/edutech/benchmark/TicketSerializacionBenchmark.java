@@ -0,0 +1,55 @@
+package com.aut.edutech.benchmark;
+
+import com.aut.edutech.assembler.TicketModelAssembler;
+import com.aut.edutech.model.Ticket;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TicketSerializacionBenchmark {
+
+    @Param({"50", "500"})
+    private int tamano;
+
+    private ObjectMapper hal;
+    private ObjectMapper json;
+    private CollectionModel<EntityModel<Ticket>> coleccion;
+
+    @Setup
+    public void preparar() {
+        hal = new ObjectMapper();
+        hal.registerModule(new Jackson2HalModule());
+        hal.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+            new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        json = new ObjectMapper();
+
+        // fuera de una peticion el assembler genera enlaces relativos, suficiente para medir la serializacion
+        TicketModelAssembler assembler = new TicketModelAssembler();
+        List<EntityModel<Ticket>> modelos = DatosBenchmark.tickets(tamano).stream()
+            .map(assembler::toModel)
+            .toList();
+        coleccion = CollectionModel.of(modelos);
+    }
+
+    @Benchmark
+    public byte[] halJson() throws JsonProcessingException {
+        return hal.writeValueAsBytes(coleccion);
+    }
+
+    @Benchmark
+    public byte[] jsonPlano() throws JsonProcessingException {
+        return json.writeValueAsBytes(coleccion);
+    }
+}
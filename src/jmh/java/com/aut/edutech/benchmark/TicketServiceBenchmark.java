@@ -0,0 +1,74 @@
+package com.aut.edutech.benchmark;
+
+import com.aut.edutech.SoporteApplication;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.service.TicketService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// TicketService completo (JPA, cache, transacciones) contra la H2 embebida de src/test/resources
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TicketServiceBenchmark {
+
+    private static final int TICKETS = 10_000;
+
+    private ConfigurableApplicationContext contexto;
+    private TicketService ticketService;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = new SpringApplicationBuilder(SoporteApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties("logging.level.root=WARN")
+            .run();
+        ticketService = contexto.getBean(TicketService.class);
+        ticketService.crearTickets(DatosBenchmark.tickets(TICKETS).iterator());
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    private static long idAleatorio() {
+        return ThreadLocalRandom.current().nextLong(1, TICKETS + 1);
+    }
+
+    @Benchmark
+    public Optional<Ticket> obtenerTicketPorId() {
+        return ticketService.obtenerTicketPorId(idAleatorio());
+    }
+
+    @Benchmark
+    public List<Ticket> obtenerPagina() {
+        return ticketService.obtenerTicketsDesde(idAleatorio(), 50);
+    }
+
+    @Benchmark
+    public List<Ticket> buscarPorEstadoCategoriaYAgente() {
+        return ticketService.buscarTickets(EstadoTicket.ABIERTO, CategoriaTicket.SOFTWARE,
+            DatosBenchmark.agente(idAleatorio()), null, null, 50);
+    }
+
+    @Benchmark
+    public Ticket asignarTicket() {
+        long id = idAleatorio();
+        return ticketService.asignarTicket(id, DatosBenchmark.agente(id + 1), null);
+    }
+
+    @Benchmark
+    public Ticket crearTicket() {
+        return ticketService.crearTicket(DatosBenchmark.ticket(idAleatorio()));
+    }
+}
@@ -1,38 +1,88 @@
 package com.aut.edutech.assembler;
 
-import com.aut.edutech.controller.TicketController;
 import com.aut.edutech.model.Ticket;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
+// Los enlaces se arman concatenando sobre la URI base de /api/tickets, que se calcula una sola vez
+// por peticion. linkTo(methodOn(...)) crea un proxy y resuelve el mapeo por reflexion en cada enlace,
+// lo que en listados grandes dominaba el tiempo de respuesta.
 @Component
 public class TicketModelAssembler
         implements RepresentationModelAssembler<Ticket, EntityModel<Ticket>> {
 
+    static final String RUTA_TICKETS = "/api/tickets";
+
+    private static final String ATRIBUTO_BASE = TicketModelAssembler.class.getName() + ".base";
+
+    @Value("${soporte.hateoas.acciones-en-listados:true}")
+    private boolean accionesEnListados = true;
+
     @Override
     public EntityModel<Ticket> toModel(Ticket ticket) {
-        return EntityModel.of(ticket,
+        return toModel(ticket, true);
+    }
+
+    // para colecciones: omite asignar/categorizar/actualizar si asi se configura
+    public EntityModel<Ticket> toModelEnListado(Ticket ticket) {
+        return toModel(ticket, accionesEnListados);
+    }
+
+    // proyeccion parcial (?fields=): solo el enlace a si mismo
+    public TicketParcial toModelParcial(Map<String, Object> campos) {
+        return new TicketParcial(campos).add(Link.of(baseTickets() + "/" + campos.get("id")).withSelfRel());
+    }
+
+    private EntityModel<Ticket> toModel(Ticket ticket, boolean conAcciones) {
+        String base = baseTickets();
+        String self = base + "/" + ticket.getId();
+        EntityModel<Ticket> model = EntityModel.of(ticket,
             // enlace a este recurso
-            linkTo(methodOn(TicketController.class)
-                .obtenerTicketPorId(ticket.getId())).withSelfRel(),
+            Link.of(self).withSelfRel(),
             // enlace al listado
-            linkTo(methodOn(TicketController.class)
-                .obtenerTickets()).withRel("tickets"),
-            // opcional: enlace para asignar
-            linkTo(methodOn(TicketController.class)
-                .asignarTicket(ticket.getId(), ticket.getAsignadoA()))
-                .withRel("asignar"),
-            // opcional: enlace para categorizar
-            linkTo(methodOn(TicketController.class)
-                .categorizarTicket(ticket.getId(), ticket.getCategoriaTicket()))
-                .withRel("categorizar"),
-            // opcional: enlace para actualizar
-            linkTo(methodOn(TicketController.class)
-                .actualizarTicket(ticket.getId(), ticket))
-                .withRel("actualizar")
-        );
+            Link.of(base, "tickets"));
+        if (ticket.getTicketPadreId() != null) {
+            // ticket original del que este es un duplicado
+            model.add(Link.of(base + "/" + ticket.getTicketPadreId(), "padre"));
+        }
+        if (conAcciones) {
+            model.add(
+                // opcional: enlace para asignar
+                Link.of(self + "/asignar" + parametro("usuarioId", ticket.getAsignadoA()), "asignar"),
+                // opcional: enlace para categorizar
+                Link.of(self + "/categorizar" + parametro("categoria", ticket.getCategoriaTicket()), "categorizar"),
+                // opcional: enlace para actualizar
+                Link.of(self, "actualizar"));
+        }
+        return model;
+    }
+
+    private static String baseTickets() {
+        RequestAttributes peticion = RequestContextHolder.getRequestAttributes();
+        if (peticion == null) {
+            // fuera de una peticion (tareas en segundo plano) se emiten enlaces relativos
+            return RUTA_TICKETS;
+        }
+        String base = (String) peticion.getAttribute(ATRIBUTO_BASE, RequestAttributes.SCOPE_REQUEST);
+        if (base == null) {
+            base = ServletUriComponentsBuilder.fromCurrentContextPath().path(RUTA_TICKETS).toUriString();
+            peticion.setAttribute(ATRIBUTO_BASE, base, RequestAttributes.SCOPE_REQUEST);
+        }
+        return base;
+    }
+
+    private static String parametro(String nombre, Object valor) {
+        return valor == null ? ""
+            : "?" + nombre + "=" + UriUtils.encodeQueryParam(valor.toString(), StandardCharsets.UTF_8);
     }
 }
@@ -0,0 +1,23 @@
+package com.aut.edutech.assembler;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.core.Relation;
+
+import java.util.Map;
+
+// Ticket con solo los campos pedidos en ?fields=; en HAL se embebe con la misma relacion que el ticket completo
+@Relation(itemRelation = "ticket", collectionRelation = "ticketList")
+public class TicketParcial extends RepresentationModel<TicketParcial> {
+
+    private final Map<String, Object> campos;
+
+    public TicketParcial(Map<String, Object> campos) {
+        this.campos = campos;
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getCampos() {
+        return campos;
+    }
+}
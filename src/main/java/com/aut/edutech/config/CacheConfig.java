@@ -0,0 +1,14 @@
+package com.aut.edutech.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// el interceptor de cache envuelve al transaccional: las entradas se refrescan
+// despues del commit y nunca con datos de una transaccion que termino en rollback
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    public static final String TICKETS = "tickets";
+}
@@ -0,0 +1,28 @@
+package com.aut.edutech.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+
+// Las respuestas asincronas de MVC (la exportacion NDJSON) usan el applicationTaskExecutor de Spring Boot,
+// que pasa a crear un hilo virtual por tarea cuando spring.threads.virtual.enabled=true (Java 21+).
+// Las tareas @Scheduled usan el taskScheduler de Spring Boot.
+@Configuration
+@EnableScheduling
+public class EjecucionConfig {
+
+    // con spring.main.lazy-initialization=true un bean perezoso con tareas @Scheduled no se crearia hasta su
+    // primer uso y sus tareas (relevo del outbox, SLA, archivo...) no llegarian a programarse
+    @Bean
+    static LazyInitializationExcludeFilter tareasProgramadas() {
+        return (nombre, definicion, tipo) -> tipo != null && !MethodIntrospector.selectMethods(
+            ClassUtils.getUserClass(tipo),
+            (MethodIntrospector.MetadataLookup<Boolean>) metodo ->
+                AnnotatedElementUtils.hasAnnotation(metodo, Scheduled.class) ? Boolean.TRUE : null).isEmpty();
+    }
+}
@@ -0,0 +1,22 @@
+package com.aut.edutech.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+// Accept: application/cbor devuelve los mismos campos que JSON en binario, pero no en HAL: el modulo HAL solo
+// se registra para JSON, asi que en CBOR los enlaces van en una lista 'links' y no hay _links ni _embedded.
+// El conversor parte del Jackson2ObjectMapperBuilder de Spring Boot para respetar spring.jackson.* (fechas ISO,
+// modulos, etc.).
+@Configuration
+public class FormatosConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false)
+            .factory(new CBORFactory())
+            .build());
+    }
+}
@@ -0,0 +1,23 @@
+package com.aut.edutech.config;
+
+import com.aut.edutech.limite.LimitadorPeticiones;
+import com.aut.edutech.limite.PropiedadesLimite;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableConfigurationProperties(PropiedadesLimite.class)
+public class LimiteConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private LimitadorPeticiones limitador;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(limitador).addPathPatterns("/api/tickets", "/api/tickets/**");
+    }
+}
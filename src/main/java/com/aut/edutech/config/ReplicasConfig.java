@@ -0,0 +1,72 @@
+package com.aut.edutech.config;
+
+import com.aut.edutech.replica.AfinidadPrimario;
+import com.aut.edutech.replica.DataSourceEnrutado;
+import com.aut.edutech.replica.PropiedadesReplicas;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Con soporte.replicas.habilitado=true el DataSource de la aplicacion pasa a ser
+// LazyConnectionDataSourceProxy -> DataSourceEnrutado -> {pool del primario, un pool por replica}.
+// El primario se sigue configurando con spring.datasource.* y spring.datasource.hikari.*.
+// Sin la propiedad se usa el DataSource autoconfigurado de siempre.
+@Configuration
+@ConditionalOnProperty(prefix = "soporte.replicas", name = "habilitado", havingValue = "true")
+@EnableConfigurationProperties(PropiedadesReplicas.class)
+public class ReplicasConfig implements WebMvcConfigurer {
+
+    private final PropiedadesReplicas propiedades;
+
+    public ReplicasConfig(PropiedadesReplicas propiedades) {
+        this.propiedades = propiedades;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties datasource) {
+        return datasource.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public DataSourceEnrutado dataSourceEnrutado(HikariDataSource dataSourcePrimario,
+            DataSourceProperties datasource) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < propiedades.nodos().size(); i++) {
+            PropiedadesReplicas.Nodo nodo = propiedades.nodos().get(i);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(nodo.url());
+            replica.setUsername(nodo.username() != null ? nodo.username() : datasource.determineUsername());
+            replica.setPassword(nodo.password() != null ? nodo.password() : datasource.determinePassword());
+            replica.setMaximumPoolSize(propiedades.pool());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new DataSourceEnrutado(dataSourcePrimario, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceEnrutado dataSourceEnrutado) {
+        return new LazyConnectionDataSourceProxy(dataSourceEnrutado);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AfinidadPrimario(propiedades)).addPathPatterns("/api/**");
+    }
+}
@@ -1,18 +1,54 @@
 package com.aut.edutech.controller;
 
 import com.aut.edutech.assembler.TicketModelAssembler;
+import com.aut.edutech.assembler.TicketParcial;
 import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
 import com.aut.edutech.model.Ticket;
+import com.aut.edutech.model.TransicionTicket;
+import com.aut.edutech.replica.ContextoLectura;
+import com.aut.edutech.service.BusquedaTickets;
+import com.aut.edutech.service.ConflictoIdempotenciaException;
+import com.aut.edutech.service.CreacionIdempotente;
+import com.aut.edutech.service.HistorialEstados;
+import com.aut.edutech.service.IdempotenciaTickets;
+import com.aut.edutech.service.ImportacionInterrumpidaException;
+import com.aut.edutech.service.ResultadoBusqueda;
+import com.aut.edutech.service.SolicitudInvalidaException;
+import com.aut.edutech.service.TicketEliminadoException;
+import com.aut.edutech.service.TicketEncontrado;
 import com.aut.edutech.service.TicketService;
+import com.aut.edutech.service.TransicionInvalidaException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.hateoas.CollectionModel;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -21,67 +57,362 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/tickets")
 public class TicketController {
 
+    private static final int LIMITE_MAXIMO = 500;
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     @Autowired
     private TicketService ticketService;
 
+    @Autowired
+    private BusquedaTickets busquedaTickets;
+
+    @Autowired
+    private HistorialEstados historialEstados;
+
+    @Autowired
+    private IdempotenciaTickets idempotenciaTickets;
+
     @Autowired
     private TicketModelAssembler assembler;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
-    public ResponseEntity<EntityModel<Ticket>> crearTicket(@RequestBody Ticket ticket) {
-        Ticket nuevo = ticketService.crearTicket(ticket);
+    public ResponseEntity<EntityModel<Ticket>> crearTicket(@RequestBody Ticket ticket,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String claveIdempotencia) {
+        Ticket nuevo;
+        boolean repetida = false;
+        if (claveIdempotencia == null) {
+            nuevo = ticketService.crearTicket(ticket);
+        } else {
+            // un reintento con la misma clave devuelve el ticket ya creado en lugar de crear otro
+            CreacionIdempotente creacion = idempotenciaTickets.crearTicket(claveIdempotencia, ticket);
+            nuevo = creacion.ticket();
+            repetida = creacion.repetida();
+        }
         EntityModel<Ticket> model = assembler.toModel(nuevo);
-        return ResponseEntity
-            .created(model.getRequiredLink("self").toUri())
-            .body(model);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity
+            .created(model.getRequiredLink("self").toUri());
+        if (repetida) {
+            respuesta.header(IDEMPOTENT_REPLAYED, "true");
+        }
+        if (nuevo.getVersion() != null) {
+            respuesta.eTag(String.valueOf(nuevo.getVersion()));
+        }
+        return respuesta.body(model);
+    }
+
+    // acepta un arreglo JSON o NDJSON; en ambos casos se lee de forma incremental sin cargar todo el cuerpo
+    @PostMapping(path = "/lote", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Map<String, Integer>> crearTicketsEnLote(InputStream cuerpo) throws IOException {
+        try (MappingIterator<Ticket> tickets = objectMapper.readerFor(Ticket.class).readValues(cuerpo)) {
+            int creados = ticketService.crearTickets(tickets);
+            return ResponseEntity.ok(Map.of("creados", creados));
+        }
     }
 
     @GetMapping
-    public CollectionModel<EntityModel<Ticket>> obtenerTickets() {
-        List<EntityModel<Ticket>> tickets = ticketService.obtenerTodosLosTickets().stream()
-            .map(assembler::toModel)
+    public PagedModel<EntityModel<Ticket>> obtenerTickets(
+            @RequestParam(required = false) Long despuesDe,
+            @RequestParam(defaultValue = "50") Integer limite) {
+        int tamano = acotarLimite(limite);
+        List<Ticket> pagina = ticketService.obtenerTicketsDesde(despuesDe, tamano);
+        return paginar(pagina, assembler::toModelEnListado, Ticket::getId, tamano,
+            linkTo(methodOn(TicketController.class).obtenerTickets(despuesDe, tamano)).withSelfRel(),
+            ultimoId -> linkTo(methodOn(TicketController.class).obtenerTickets(ultimoId, tamano)));
+    }
+
+    // ?fields=id,titulo,estadoTicket: solo se leen y devuelven esos campos, con el enlace self por elemento
+    @GetMapping(params = "fields")
+    public PagedModel<TicketParcial> obtenerCamposTickets(
+            @RequestParam List<String> fields,
+            @RequestParam(required = false) Long despuesDe,
+            @RequestParam(defaultValue = "50") Integer limite) {
+        int tamano = acotarLimite(limite);
+        List<Map<String, Object>> pagina = ticketService.buscarCamposTickets(
+            fields, null, null, null, null, despuesDe, tamano);
+        return paginar(pagina, assembler::toModelParcial, TicketController::idDe, tamano,
+            linkTo(methodOn(TicketController.class).obtenerCamposTickets(fields, despuesDe, tamano)).withSelfRel(),
+            ultimoId -> linkTo(methodOn(TicketController.class).obtenerCamposTickets(fields, ultimoId, tamano)));
+    }
+
+    @GetMapping("/buscar")
+    public PagedModel<EntityModel<Ticket>> buscarTickets(
+            @RequestParam(required = false) EstadoTicket estado,
+            @RequestParam(required = false) CategoriaTicket categoria,
+            @RequestParam(required = false) String asignadoA,
+            @RequestParam(required = false) String creadoPor,
+            @RequestParam(required = false) Long despuesDe,
+            @RequestParam(defaultValue = "50") Integer limite) {
+        int tamano = acotarLimite(limite);
+        List<Ticket> pagina = ticketService.buscarTickets(
+            estado, categoria, asignadoA, creadoPor, despuesDe, tamano);
+        return paginar(pagina, assembler::toModelEnListado, Ticket::getId, tamano,
+            linkTo(methodOn(TicketController.class)
+                .buscarTickets(estado, categoria, asignadoA, creadoPor, despuesDe, tamano)).withSelfRel(),
+            ultimoId -> linkTo(methodOn(TicketController.class)
+                .buscarTickets(estado, categoria, asignadoA, creadoPor, ultimoId, tamano)));
+    }
+
+    @GetMapping(path = "/buscar", params = "fields")
+    public PagedModel<TicketParcial> buscarCamposTickets(
+            @RequestParam List<String> fields,
+            @RequestParam(required = false) EstadoTicket estado,
+            @RequestParam(required = false) CategoriaTicket categoria,
+            @RequestParam(required = false) String asignadoA,
+            @RequestParam(required = false) String creadoPor,
+            @RequestParam(required = false) Long despuesDe,
+            @RequestParam(defaultValue = "50") Integer limite) {
+        int tamano = acotarLimite(limite);
+        List<Map<String, Object>> pagina = ticketService.buscarCamposTickets(
+            fields, estado, categoria, asignadoA, creadoPor, despuesDe, tamano);
+        return paginar(pagina, assembler::toModelParcial, TicketController::idDe, tamano,
+            linkTo(methodOn(TicketController.class)
+                .buscarCamposTickets(fields, estado, categoria, asignadoA, creadoPor, despuesDe, tamano)).withSelfRel(),
+            ultimoId -> linkTo(methodOn(TicketController.class)
+                .buscarCamposTickets(fields, estado, categoria, asignadoA, creadoPor, ultimoId, tamano)));
+    }
+
+    // busqueda de texto completo sobre titulo y descripcion, ordenada por relevancia
+    @GetMapping("/buscar/texto")
+    public PagedModel<EntityModel<TicketEncontrado>> buscarTexto(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") Integer pagina,
+            @RequestParam(defaultValue = "20") Integer tamano) throws IOException {
+        if (q.isBlank()) {
+            throw new SolicitudInvalidaException("q no puede estar vacio");
+        }
+        int numero = Math.max(0, pagina);
+        int limite = acotarLimite(tamano);
+        ResultadoBusqueda resultado = busquedaTickets.buscar(q, numero, limite);
+        List<EntityModel<TicketEncontrado>> encontrados = resultado.encontrados().stream()
+            .map(e -> EntityModel.of(e, assembler.toModelEnListado(e.ticket()).getLinks()))
             .toList();
 
-        return CollectionModel.of(tickets,
-            linkTo(methodOn(TicketController.class).obtenerTickets()).withSelfRel());
+        PagedModel<EntityModel<TicketEncontrado>> model = PagedModel.of(encontrados,
+            new PagedModel.PageMetadata(limite, numero, resultado.total()),
+            linkTo(methodOn(TicketController.class).buscarTexto(q, numero, limite)).withSelfRel());
+        if ((long) (numero + 1) * limite < Math.min(resultado.total(), BusquedaTickets.MAXIMO_RESULTADOS)) {
+            model.add(linkTo(methodOn(TicketController.class).buscarTexto(q, numero + 1, limite))
+                .withRel(IanaLinkRelations.NEXT));
+        }
+        return model;
+    }
+
+    // el cuerpo se escribe en un hilo del ejecutor asincrono de MVC: la marca de ContextoLectura que
+    // AfinidadPrimario puso en el hilo de la peticion se copia alli y se retira al terminar
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarTickets() {
+        boolean replicas = ContextoLectura.enReplicas();
+        StreamingResponseBody cuerpo = salida -> {
+            if (replicas) {
+                ContextoLectura.usarReplicas();
+            }
+            try (SequenceWriter escritor = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(salida)) {
+                ticketService.exportarTickets(ticket -> {
+                    try {
+                        escritor.write(ticket);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                ContextoLectura.limpiar();
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(cuerpo);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<Ticket>> obtenerTicketPorId(@PathVariable Long id) {
+    public ResponseEntity<EntityModel<Ticket>> obtenerTicketPorId(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Optional<Ticket> opt = ticketService.obtenerTicketPorId(id);
         return opt
-            .map(ticket -> ResponseEntity.ok(assembler.toModel(ticket)))
+            .map(ticket -> coincideEtag(ifNoneMatch, ticket.getVersion())
+                ? ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(String.valueOf(ticket.getVersion()))
+                    .<EntityModel<Ticket>>build()
+                : respuesta(ticket))
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<EntityModel<Ticket>> actualizarTicket(
             @PathVariable Long id,
-            @RequestBody Ticket ticketActualizado) {
-        Ticket actualizado = ticketService.actualizarTicket(id, ticketActualizado);
+            @RequestBody Ticket ticketActualizado,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Ticket actualizado = ticketService.actualizarTicket(id, ticketActualizado, versionEsperada(ifMatch));
         if (actualizado == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(assembler.toModel(actualizado));
+        return respuesta(actualizado);
+    }
+
+    @PatchMapping(path = "/{id}", consumes = "application/merge-patch+json")
+    public ResponseEntity<EntityModel<Ticket>> parchearTicket(
+            @PathVariable Long id,
+            @RequestBody JsonNode parche,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Ticket actualizado = ticketService.parchearTicket(id, parche, versionEsperada(ifMatch));
+        return actualizado != null
+            ? respuesta(actualizado)
+            : ResponseEntity.notFound().build();
     }
 
     @PutMapping("/{id}/asignar")
     public ResponseEntity<EntityModel<Ticket>> asignarTicket(
             @PathVariable Long id,
-            @RequestParam String usuarioId) {
-        Ticket actualizado = ticketService.asignarTicket(id, usuarioId);
+            @RequestParam String usuarioId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Ticket actualizado = ticketService.asignarTicket(id, usuarioId, versionEsperada(ifMatch));
         return actualizado != null
-            ? ResponseEntity.ok(assembler.toModel(actualizado))
+            ? respuesta(actualizado)
             : ResponseEntity.notFound().build();
     }
 
     @PutMapping("/{id}/categorizar")
     public ResponseEntity<EntityModel<Ticket>> categorizarTicket(
             @PathVariable Long id,
-            @RequestParam CategoriaTicket categoria) {
-        Ticket actualizado = ticketService.categorizarTicket(id, categoria);
+            @RequestParam CategoriaTicket categoria,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Ticket actualizado = ticketService.categorizarTicket(id, categoria, versionEsperada(ifMatch));
         return actualizado != null
-            ? ResponseEntity.ok(assembler.toModel(actualizado))
+            ? respuesta(actualizado)
             : ResponseEntity.notFound().build();
     }
+
+    @PutMapping("/{id}/transicion")
+    public ResponseEntity<EntityModel<Ticket>> transicionarTicket(
+            @PathVariable Long id,
+            @RequestParam EstadoTicket estado,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Ticket actualizado = ticketService.transicionarTicket(id, estado, versionEsperada(ifMatch));
+        return actualizado != null
+            ? respuesta(actualizado)
+            : ResponseEntity.notFound().build();
+    }
+
+    // tickets enlazados a este como duplicados casi identicos al crearse
+    @GetMapping("/{id}/duplicados")
+    public List<EntityModel<Ticket>> obtenerDuplicados(@PathVariable Long id) {
+        return ticketService.obtenerDuplicados(id).stream().map(assembler::toModelEnListado).toList();
+    }
+
+    @GetMapping("/{id}/transiciones")
+    public List<TransicionTicket> obtenerTransiciones(@PathVariable Long id) {
+        return historialEstados.historial(id);
+    }
+
+    @ExceptionHandler({SolicitudInvalidaException.class, RuntimeJsonMappingException.class})
+    public ResponseEntity<String> manejarSolicitudInvalida(RuntimeException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    // /lote confirma por bloques: el cuerpo dice cuantos tickets quedaron creados antes del fallo
+    @ExceptionHandler(ImportacionInterrumpidaException.class)
+    public ResponseEntity<Map<String, Object>> manejarImportacionInterrumpida(ImportacionInterrumpidaException e) {
+        HttpStatus estado = errorDelCliente(e.getCause()) ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(estado).body(Map.of("creados", e.getCreados(), "error", e.getMessage()));
+    }
+
+    // MappingIterator envuelve el JSON mal formado en un RuntimeException sin tipo propio
+    private static boolean errorDelCliente(Throwable causa) {
+        return causa instanceof SolicitudInvalidaException || causa instanceof RuntimeJsonMappingException
+            || causa.getCause() instanceof JsonProcessingException;
+    }
+
+    @ExceptionHandler(ConflictoIdempotenciaException.class)
+    public ResponseEntity<String> manejarConflictoIdempotencia(ConflictoIdempotenciaException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    // la clave apunta a un ticket que ya no existe: el cliente debe reintentar con otra clave
+    @ExceptionHandler(TicketEliminadoException.class)
+    public ResponseEntity<String> manejarTicketEliminado(TicketEliminadoException e) {
+        return ResponseEntity.status(HttpStatus.GONE).body(e.getMessage());
+    }
+
+    // transicion no permitida por la maquina de estados de EstadoTicket
+    @ExceptionHandler(TransicionInvalidaException.class)
+    public ResponseEntity<String> manejarTransicionInvalida(TransicionInvalidaException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    // sin If-Match se responde 409; con If-Match el cliente pidio una precondicion y se responde 412
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> manejarConflictoVersion(OptimisticLockingFailureException e,
+            HttpServletRequest request) {
+        HttpStatus estado = request.getHeader(HttpHeaders.IF_MATCH) != null
+            ? HttpStatus.PRECONDITION_FAILED
+            : HttpStatus.CONFLICT;
+        return ResponseEntity.status(estado).body(e.getMessage());
+    }
+
+    private ResponseEntity<EntityModel<Ticket>> respuesta(Ticket ticket) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (ticket.getVersion() != null) {
+            respuesta.eTag(String.valueOf(ticket.getVersion()));
+        }
+        return respuesta.body(assembler.toModel(ticket));
+    }
+
+    private static Long versionEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(valorEtag(ifMatch.trim()));
+        } catch (NumberFormatException e) {
+            throw new OptimisticLockingFailureException("If-Match no corresponde a ninguna version: " + ifMatch);
+        }
+    }
+
+    private static boolean coincideEtag(String ifNoneMatch, Long version) {
+        if (ifNoneMatch == null || version == null) {
+            return false;
+        }
+        for (String etag : ifNoneMatch.split(",")) {
+            String valor = etag.trim();
+            if (valor.equals("*") || valorEtag(valor).equals(String.valueOf(version))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String valorEtag(String etag) {
+        String valor = etag.startsWith("W/") ? etag.substring(2) : etag;
+        return valor.replace("\"", "");
+    }
+
+    private static Long idDe(Map<String, Object> campos) {
+        return (Long) campos.get("id");
+    }
+
+    private static int acotarLimite(Integer limite) {
+        return Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    private static <T, R extends RepresentationModel<?>> PagedModel<R> paginar(List<T> pagina,
+            Function<T, R> modelo, Function<T, Long> id, int tamano, Link self,
+            Function<Long, WebMvcLinkBuilder> siguiente) {
+        List<R> elementos = pagina.stream()
+            .map(modelo)
+            .toList();
+
+        PagedModel<R> model = PagedModel.of(elementos, (PagedModel.PageMetadata) null, self);
+        // solo hay pagina siguiente si la actual vino completa
+        if (pagina.size() == tamano) {
+            Long ultimoId = id.apply(pagina.get(pagina.size() - 1));
+            model.add(siguiente.apply(ultimoId).withRel(IanaLinkRelations.NEXT));
+        }
+        return model;
+    }
 }
@@ -0,0 +1,46 @@
+package com.aut.edutech.controller;
+
+import com.aut.edutech.service.EstadisticasTickets;
+import com.aut.edutech.service.HistorialEstados;
+import com.aut.edutech.service.ResumenEstadisticas;
+import com.aut.edutech.service.SolicitudInvalidaException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tickets/estadisticas")
+public class TicketEstadisticasController {
+
+    @Autowired
+    private EstadisticasTickets estadisticas;
+
+    @Autowired
+    private HistorialEstados historialEstados;
+
+    // se sirve desde los contadores en memoria, sin consultar la base de datos
+    @GetMapping
+    public ResumenEstadisticas obtenerEstadisticas() {
+        return estadisticas.resumen();
+    }
+
+    // tiempo en estado y entradas por estado a partir del historial de transiciones; por defecto, la ultima semana
+    @GetMapping("/estados")
+    public List<HistorialEstados.ResumenEstado> obtenerEstadisticasPorEstado(
+            @RequestParam(required = false) Instant desde,
+            @RequestParam(required = false) Instant hasta) {
+        Instant fin = hasta != null ? hasta : Instant.now();
+        Instant inicio = desde != null ? desde : fin.minus(Duration.ofDays(7));
+        if (!inicio.isBefore(fin)) {
+            throw new SolicitudInvalidaException("desde debe ser anterior a hasta");
+        }
+        return historialEstados.resumen(inicio, fin);
+    }
+}
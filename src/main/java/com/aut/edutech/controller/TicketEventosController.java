@@ -0,0 +1,35 @@
+package com.aut.edutech.controller;
+
+import com.aut.edutech.evento.DifusionEventos;
+import com.aut.edutech.evento.FiltroEventos;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/tickets/eventos")
+public class TicketEventosController {
+
+    @Autowired
+    private DifusionEventos difusion;
+
+    // EventSource reenvia Last-Event-ID al reconectar; el parametro sirve a clientes que no pueden fijar cabeceras
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribir(
+            @RequestParam(required = false) String asignadoA,
+            @RequestParam(required = false) CategoriaTicket categoria,
+            @RequestParam(required = false) EstadoTicket estado,
+            @RequestParam(required = false) String ultimoEventoId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return difusion.suscribir(new FiltroEventos(asignadoA, categoria, estado),
+            lastEventId != null ? lastEventId : ultimoEventoId);
+    }
+}
@@ -0,0 +1,30 @@
+package com.aut.edutech.controller;
+
+import com.aut.edutech.service.MonitorSla;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tickets/sla")
+public class TicketSlaController {
+
+    private static final int LIMITE_MAXIMO = 500;
+
+    @Autowired
+    private MonitorSla monitorSla;
+
+    // dentroDe en formato ISO-8601 (PT2H); PT0S devuelve solo los ya incumplidos
+    @GetMapping("/riesgo")
+    public List<MonitorSla.RiesgoSla> obtenerTicketsEnRiesgo(
+            @RequestParam(defaultValue = "PT2H") Duration dentroDe,
+            @RequestParam(defaultValue = "100") Integer limite) {
+        return monitorSla.enRiesgo(dentroDe, Math.max(1, Math.min(limite, LIMITE_MAXIMO)));
+    }
+}
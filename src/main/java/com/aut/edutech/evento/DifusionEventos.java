@@ -0,0 +1,238 @@
+package com.aut.edutech.evento;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Reparte los TicketEvento confirmados a los suscriptores SSE.
+// - Cada evento recibe un id "<arranque>-<secuencia>" y se guarda en un historial circular; un cliente que
+//   reconecta con Last-Event-ID recibe lo que se perdio, o un evento 'reinicio' si ya no esta en el historial
+//   (o el servidor se reinicio) y debe recargar su estado con GET /api/tickets.
+// - Publicar solo numera el evento y lo escribe en el historial bajo un cerrojo breve, y despues avisa a los
+//   suscriptores sin cerrojo; nunca espera a un cliente. Cada suscriptor lee el historial desde su cursor en
+//   orden de secuencia, en un pool propio (soporte.eventos.hilos) para que un cliente lento no ocupe el
+//   applicationTaskExecutor. Si se retrasa mas de soporte.eventos.buffer eventos se descartan sus mas antiguos.
+@Component
+public class DifusionEventos {
+
+    static final String REINICIO = "reinicio";
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Value("${soporte.eventos.historial:1024}")
+    private int tamanoHistorial;
+
+    @Value("${soporte.eventos.buffer:256}")
+    private int tamanoBuffer;
+
+    @Value("${soporte.eventos.timeout:PT30M}")
+    private Duration timeout;
+
+    @Value("${soporte.eventos.hilos:4}")
+    private int hilos;
+
+    private final long arranque = System.currentTimeMillis();
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final Lock numeracion = new ReentrantLock();
+    private AtomicReferenceArray<EventoEmitido> historial;
+    // ultima secuencia escrita en el historial; solo avanza con 'numeracion' tomado
+    private volatile long publicada;
+    private Executor executor;
+    private Counter descartados;
+
+    @PostConstruct
+    void iniciar() {
+        historial = new AtomicReferenceArray<>(tamanoHistorial);
+        // cada suscriptor tiene como mucho un envio pendiente, asi que la cola no crece mas que los suscriptores
+        executor = Executors.newFixedThreadPool(hilos, new CustomizableThreadFactory("difusion-eventos-"));
+        descartados = Counter.builder("tickets.eventos.descartados")
+            .description("Eventos descartados porque el suscriptor se retraso mas que su buffer")
+            .register(registro);
+        Gauge.builder("tickets.eventos.suscriptores", suscriptores, Set::size)
+            .description("Suscriptores SSE conectados")
+            .register(registro);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        if (executor instanceof ExecutorService servicio) {
+            servicio.shutdownNow();
+        }
+    }
+
+    public SseEmitter suscribir(FiltroEventos filtro, String ultimoEventoId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Suscriptor suscriptor = new Suscriptor(emitter, filtro, cursorInicial(emitter, ultimoEventoId));
+        emitter.onCompletion(() -> suscriptores.remove(suscriptor));
+        emitter.onTimeout(() -> suscriptores.remove(suscriptor));
+        emitter.onError(e -> suscriptores.remove(suscriptor));
+        // lo publicado entre el calculo del cursor y el alta queda por encima del cursor y se envia aqui
+        suscriptores.add(suscriptor);
+        suscriptor.programar();
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarTicket(TicketEvento evento) {
+        numeracion.lock();
+        try {
+            long secuencia = publicada + 1;
+            historial.set(indice(secuencia), new EventoEmitido(secuencia, evento));
+            publicada = secuencia;
+        } finally {
+            numeracion.unlock();
+        }
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.programar();
+        }
+    }
+
+    // mantiene viva la conexion a traves de proxies y detecta clientes desconectados
+    @Scheduled(fixedDelayString = "${soporte.eventos.latido:PT15S}")
+    public void latir() {
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.encolar(SseEmitter.event().comment("latido"));
+        }
+    }
+
+    // ultima secuencia que el suscriptor ya tiene; si su Last-Event-ID no se puede reanudar se le pide reinicio
+    // y recibe lo que quede en el historial
+    private long cursorInicial(SseEmitter emitter, String ultimoEventoId) {
+        long hasta = publicada;
+        if (ultimoEventoId == null) {
+            return hasta;
+        }
+        long desde = secuenciaDe(ultimoEventoId);
+        long masAntigua = Math.max(1, hasta - historial.length() + 1);
+        if (desde < 0 || desde > hasta || desde + 1 < masAntigua) {
+            try {
+                emitter.send(SseEmitter.event().name(REINICIO).data(""));
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return masAntigua - 1;
+        }
+        return desde;
+    }
+
+    private int indice(long secuencia) {
+        return (int) (secuencia % historial.length());
+    }
+
+    // -1 si el id no es de este arranque
+    private long secuenciaDe(String eventoId) {
+        int guion = eventoId.indexOf('-');
+        try {
+            if (guion > 0 && Long.parseLong(eventoId.substring(0, guion)) == arranque) {
+                return Long.parseLong(eventoId.substring(guion + 1));
+            }
+        } catch (NumberFormatException e) {
+            // id ajeno: se trata como si el cliente no tuviera nada
+        }
+        return -1;
+    }
+
+    private record EventoEmitido(long secuencia, TicketEvento evento) {
+    }
+
+    private final class Suscriptor {
+
+        private final SseEmitter emitter;
+        private final FiltroEventos filtro;
+        // latidos; los eventos se leen del historial
+        private final BlockingQueue<SseEmitter.SseEventBuilder> avisos = new ArrayBlockingQueue<>(1);
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        // solo lo mueve el envio en curso ('enviando')
+        private long cursor;
+
+        private Suscriptor(SseEmitter emitter, FiltroEventos filtro, long cursor) {
+            this.emitter = emitter;
+            this.filtro = filtro;
+            this.cursor = cursor;
+        }
+
+        private void encolar(SseEmitter.SseEventBuilder aviso) {
+            // un latido pendiente basta
+            if (avisos.offer(aviso)) {
+                programar();
+            }
+        }
+
+        private void programar() {
+            if (enviando.compareAndSet(false, true)) {
+                executor.execute(this::vaciar);
+            }
+        }
+
+        private void vaciar() {
+            try {
+                SseEmitter.SseEventBuilder aviso;
+                while ((aviso = avisos.poll()) != null) {
+                    emitter.send(aviso);
+                }
+                long hasta = publicada;
+                for (long s = cursor + 1; s <= hasta; s++) {
+                    EventoEmitido emitido = historial.get(indice(s));
+                    cursor = s;
+                    // pisado en el historial por eventos mas nuevos, o mas atrasado que el buffer
+                    boolean perdido = emitido == null || emitido.secuencia() != s;
+                    if (perdido || hasta - s >= tamanoBuffer) {
+                        if (perdido || filtro.acepta(emitido.evento())) {
+                            descartados.increment();
+                        }
+                        continue;
+                    }
+                    if (filtro.acepta(emitido.evento())) {
+                        emitter.send(evento(emitido));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // cliente desconectado o emisor ya completado
+                suscriptores.remove(this);
+                avisos.clear();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                enviando.set(false);
+            }
+            // un evento pudo publicarse entre la lectura de 'publicada' y la liberacion de 'enviando'
+            if (!avisos.isEmpty() || cursor < publicada) {
+                programar();
+            }
+        }
+
+        private SseEmitter.SseEventBuilder evento(EventoEmitido emitido) {
+            TicketEvento evento = emitido.evento();
+            return SseEmitter.event()
+                .id(arranque + "-" + emitido.secuencia())
+                .name(evento.tipo().name().toLowerCase(Locale.ROOT))
+                .data(evento.actual() != null ? evento.actual() : evento.anterior(), MediaType.APPLICATION_JSON);
+        }
+    }
+}
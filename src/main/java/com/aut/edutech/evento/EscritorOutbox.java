@@ -0,0 +1,39 @@
+package com.aut.edutech.evento;
+
+import com.aut.edutech.model.EventoOutbox;
+import com.aut.edutech.repository.EventoOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+// Se ejecuta de forma sincrona dentro de la transaccion que publica el evento: la fila del outbox
+// se confirma o se descarta junto con el cambio del ticket.
+@Component
+public class EscritorOutbox {
+
+    @Autowired
+    private EventoOutboxRepository outboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @EventListener
+    public void alCambiarTicket(TicketEvento evento) {
+        try {
+            outboxRepository.save(EventoOutbox.builder()
+                .tipo(evento.tipo())
+                .ticketId(evento.ticketId())
+                .payload(objectMapper.writeValueAsString(evento))
+                .creadoEn(Instant.now())
+                .build());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
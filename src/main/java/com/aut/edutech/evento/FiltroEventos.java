@@ -0,0 +1,21 @@
+package com.aut.edutech.evento;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+
+// Criterios de una suscripcion; los nulos no filtran. Un evento pasa si el ticket cumple el filtro
+// antes o despues del cambio, asi quien filtra por asignadoA tambien se entera cuando le quitan un ticket.
+public record FiltroEventos(String asignadoA, CategoriaTicket categoria, EstadoTicket estado) {
+
+    public boolean acepta(TicketEvento evento) {
+        return acepta(evento.anterior()) || acepta(evento.actual());
+    }
+
+    private boolean acepta(Ticket ticket) {
+        return ticket != null
+            && (asignadoA == null || asignadoA.equals(ticket.getAsignadoA()))
+            && (categoria == null || categoria == ticket.getCategoriaTicket())
+            && (estado == null || estado == ticket.getEstadoTicket());
+    }
+}
@@ -0,0 +1,13 @@
+package com.aut.edutech.evento;
+
+import com.aut.edutech.model.EventoOutbox;
+
+import java.util.List;
+
+// Destino de los eventos del outbox (cola, broker, fichero...). Recibe los lotes en orden de id, fuera de
+// cualquier transaccion; si lanza una excepcion el lote se reintenta entero en la siguiente pasada, por lo que
+// la entrega es al menos una vez.
+public interface PublicadorEventos {
+
+    void publicar(List<EventoOutbox> lote);
+}
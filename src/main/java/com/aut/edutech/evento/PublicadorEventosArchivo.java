@@ -0,0 +1,51 @@
+package com.aut.edutech.evento;
+
+import com.aut.edutech.model.EventoOutbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// anade cada evento como una linea NDJSON al final del fichero configurado, un lote cada vez. Se serializa con un
+// ReentrantLock: con un monitor la escritura del fichero anclaria el hilo portador si corre en un hilo virtual.
+// El fichero crece sin limite ni rotacion; es el publicador por defecto en local, en prod hay que elegirlo
+@Component
+@ConditionalOnProperty(name = "soporte.outbox.publicador", havingValue = "archivo")
+public class PublicadorEventosArchivo implements PublicadorEventos {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${soporte.outbox.archivo:eventos-tickets.ndjson}")
+    private Path archivo;
+
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    @Override
+    public void publicar(List<EventoOutbox> lote) {
+        escritura.lock();
+        try (BufferedWriter escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (EventoOutbox evento : lote) {
+                escritor.write(objectMapper.writeValueAsString(evento));
+                escritor.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            escritura.unlock();
+        }
+    }
+}
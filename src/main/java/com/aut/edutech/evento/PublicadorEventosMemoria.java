@@ -0,0 +1,31 @@
+package com.aut.edutech.evento;
+
+import com.aut.edutech.model.EventoOutbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// guarda lo publicado en memoria; pensado para tests y entornos locales
+@Component
+@ConditionalOnProperty(name = "soporte.outbox.publicador", havingValue = "memoria")
+public class PublicadorEventosMemoria implements PublicadorEventos {
+
+    private final List<EventoOutbox> publicados = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publicar(List<EventoOutbox> lote) {
+        publicados.addAll(lote);
+    }
+
+    public List<EventoOutbox> publicados() {
+        return new ArrayList<>(publicados);
+    }
+
+    public void limpiar() {
+        publicados.clear();
+    }
+}
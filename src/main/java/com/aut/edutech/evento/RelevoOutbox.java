@@ -0,0 +1,76 @@
+package com.aut.edutech.evento;
+
+import com.aut.edutech.model.EventoOutbox;
+import com.aut.edutech.repository.EventoOutboxRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Vacia el outbox por lotes en orden de id. Cada lote se reclama en una transaccion corta (bloquea las filas,
+// las marca con un reclamo y confirma), se publica sin bloqueos ni conexion abierta y despues se borra. Si
+// publicar falla el reclamo se libera y el lote se reintenta en la siguiente pasada; si el relevo cae a mitad,
+// el reclamo caduca tras soporte.outbox.reclamo y otro lo vuelve a publicar (entrega al menos una vez).
+// Con varios relevos, los eventos de un ticket los publica uno solo cada vez: no se reclama un evento mientras
+// otro relevo tenga pendiente uno anterior del mismo ticket, asi salen en orden de id por ticket.
+// Limitacion: el orden de id no es el de commit. Los ids salen de bloques de la secuencia reservados por cada
+// instancia y un cambio posterior del mismo ticket hecho en otra instancia puede tener un id menor (o
+// confirmarse despues de publicado uno mayor). Los consumidores deben ordenar por la version de cada ticket.
+@Component
+public class RelevoOutbox {
+
+    @Autowired
+    private EventoOutboxRepository outboxRepository;
+
+    @Autowired
+    private PublicadorEventos publicador;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${soporte.outbox.lote:100}")
+    private int tamanoLote;
+
+    @Value("${soporte.outbox.reclamo:PT1M}")
+    private Duration duracionReclamo;
+
+    @Scheduled(fixedDelayString = "${soporte.outbox.intervalo:PT1S}")
+    public void relevar() {
+        int publicados;
+        do {
+            String reclamo = UUID.randomUUID().toString();
+            List<EventoOutbox> lote = reclamar(reclamo);
+            if (!lote.isEmpty()) {
+                try {
+                    publicador.publicar(lote);
+                } catch (RuntimeException e) {
+                    outboxRepository.liberar(reclamo);
+                    throw e;
+                }
+                outboxRepository.borrarReclamados(reclamo);
+            }
+            publicados = lote.size();
+        } while (publicados == tamanoLote);
+    }
+
+    private List<EventoOutbox> reclamar(String reclamo) {
+        return transactionTemplate.execute(estado -> {
+            Instant ahora = Instant.now();
+            List<EventoOutbox> lote = outboxRepository.buscarLibres(ahora.minus(duracionReclamo),
+                Limit.of(tamanoLote));
+            lote.forEach(evento -> {
+                evento.setReclamo(reclamo);
+                evento.setReclamadoEn(ahora);
+            });
+            return lote;
+        });
+    }
+}
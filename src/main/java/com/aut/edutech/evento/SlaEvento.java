@@ -0,0 +1,14 @@
+package com.aut.edutech.evento;
+
+import com.aut.edutech.model.CategoriaTicket;
+
+import java.time.Instant;
+
+// publicado por MonitorSla cuando un ticket abierto se acerca a su vencimiento o lo supera
+public record SlaEvento(Tipo tipo, Long ticketId, CategoriaTicket categoria, String asignadoA, Instant vence) {
+
+    public enum Tipo {
+        AVISO,
+        INCUMPLIMIENTO
+    }
+}
@@ -0,0 +1,27 @@
+package com.aut.edutech.evento;
+
+import com.aut.edutech.model.Ticket;
+
+// Cambio de un ticket publicado por TicketService (o ArchivadorTickets). 'anterior' es null al crear y 'actual'
+// es null al archivar; ambos son copias, asi los listeners pueden leerlos despues del commit sin ver
+// modificaciones posteriores. ASIGNADO y CATEGORIZADO pueden llegar sin 'anterior' (ver anteriorConocido).
+public record TicketEvento(Tipo tipo, Ticket anterior, Ticket actual) {
+
+    public enum Tipo {
+        CREADO,
+        ACTUALIZADO,
+        ASIGNADO,
+        CATEGORIZADO,
+        TRANSICION,
+        ARCHIVADO
+    }
+
+    // asignar y categorizar no leen la fila antes del UPDATE; solo traen el estado previo si estaba en la cache
+    public boolean anteriorConocido() {
+        return anterior != null || tipo == Tipo.CREADO;
+    }
+
+    public Long ticketId() {
+        return actual != null ? actual.getId() : anterior.getId();
+    }
+}
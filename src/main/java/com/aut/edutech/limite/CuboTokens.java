@@ -0,0 +1,37 @@
+package com.aut.edutech.limite;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cubo de tokens sin bloqueos (GCRA): todo el estado es el instante teorico en que el cubo volveria a estar
+// lleno, asi que consumir un token es un unico compareAndSet sobre un long.
+final class CuboTokens {
+
+    private final long nanosPorToken;
+    private final long rafagaNanos;
+    private final AtomicLong lleno;
+
+    CuboTokens(int capacidad, double porSegundo, long ahora) {
+        this.nanosPorToken = Math.max(1, Math.round(1_000_000_000d / porSegundo));
+        this.rafagaNanos = nanosPorToken * capacidad;
+        this.lleno = new AtomicLong(ahora);
+    }
+
+    // 0 si se concede el token; si no, los nanosegundos que faltan para el siguiente
+    long consumir(long ahora) {
+        while (true) {
+            long actual = lleno.get();
+            long siguiente = Math.max(actual, ahora) + nanosPorToken;
+            long exceso = siguiente - ahora - rafagaNanos;
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (lleno.compareAndSet(actual, siguiente)) {
+                return 0;
+            }
+        }
+    }
+
+    long disponibles(long ahora) {
+        return (rafagaNanos - Math.max(0, lleno.get() - ahora)) / nanosPorToken;
+    }
+}
@@ -0,0 +1,161 @@
+package com.aut.edutech.limite;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Delante de los endpoints de tickets:
+// 1. descarte por carga: si ya hay soporte.limite.concurrencia peticiones en curso se responde 503 sin tocar
+//    la base de datos, en lugar de dejar que los hilos se encolen en el pool de conexiones;
+// 2. cuota por cliente y endpoint con un CuboTokens por pareja; al agotarse se responde 429.
+// El cliente es la IP remota, o la cabecera soporte.limite.cabecera-cliente cuando la peticion llega desde uno
+// de soporte.limite.proxies-confiables. Los cubos viven en una cache acotada que olvida a los clientes
+// inactivos; un cubo olvidado vuelve a empezar lleno.
+// Las respuestas SSE liberan su plaza al pasar a segundo plano: ya no ocupan un hilo ni una conexion. Una
+// StreamingResponseBody (exportacion NDJSON) la conserva hasta terminar, porque mantiene abierta su
+// transaccion y su conexion del pool mientras escribe.
+@Component
+public class LimitadorPeticiones implements AsyncHandlerInterceptor {
+
+    static final String RECHAZOS = "tickets.limite.rechazos";
+    private static final String PLAZA = LimitadorPeticiones.class.getName() + ".plaza";
+
+    @Autowired
+    private PropiedadesLimite propiedades;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private Cache<Cliente, CuboTokens> cubos;
+
+    @PostConstruct
+    void iniciar() {
+        cubos = Caffeine.newBuilder()
+            .maximumSize(propiedades.maximoClientes())
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+        Gauge.builder("tickets.limite.en_curso", enCurso, AtomicInteger::get)
+            .description("Peticiones de tickets en curso")
+            .register(registro);
+        Gauge.builder("tickets.limite.concurrencia", propiedades, PropiedadesLimite::concurrencia)
+            .description("Peticiones simultaneas admitidas antes de descartar")
+            .register(registro);
+        Gauge.builder("tickets.limite.clientes", cubos, Cache::estimatedSize)
+            .description("Cubos de tokens activos")
+            .register(registro);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // el redespacho de una respuesta asincrona ya paso por aqui en la peticion original
+        if (!propiedades.habilitado() || request.getDispatcherType() == DispatcherType.ASYNC
+                || !(handler instanceof HandlerMethod metodo)) {
+            return true;
+        }
+        String endpoint = metodo.getMethod().getName();
+        if (enCurso.incrementAndGet() > propiedades.concurrencia()) {
+            enCurso.decrementAndGet();
+            return rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, "saturacion", endpoint, 1,
+                "Servicio saturado, reintente en unos segundos");
+        }
+        request.setAttribute(PLAZA, Boolean.TRUE);
+
+        long ahora = System.nanoTime();
+        PropiedadesLimite.Cuota cuota = propiedades.cuota(endpoint);
+        CuboTokens cubo = cubos.get(new Cliente(cliente(request), endpoint),
+            c -> new CuboTokens(cuota.capacidad(), cuota.porSegundo(), ahora));
+        long espera = cubo.consumir(ahora);
+        if (espera > 0) {
+            liberar(request);
+            return rechazar(response, HttpStatus.TOO_MANY_REQUESTS, "cuota", endpoint,
+                Math.max(1, TimeUnit.NANOSECONDS.toSeconds(espera + 999_999_999)),
+                "Limite de peticiones superado para " + endpoint);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        if (!retieneConexion(handler)) {
+            liberar(request);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        liberar(request);
+    }
+
+    int enCurso() {
+        return enCurso.get();
+    }
+
+    private void liberar(HttpServletRequest request) {
+        if (request.getAttribute(PLAZA) != null) {
+            request.removeAttribute(PLAZA);
+            enCurso.decrementAndGet();
+        }
+    }
+
+    private String cliente(HttpServletRequest request) {
+        String remota = request.getRemoteAddr();
+        if (!propiedades.proxiesConfiables().contains(remota)) {
+            return remota;
+        }
+        String cabecera = request.getHeader(propiedades.cabeceraCliente());
+        return cabecera != null && !cabecera.isBlank() ? cabecera : remota;
+    }
+
+    private static boolean retieneConexion(Object handler) {
+        if (!(handler instanceof HandlerMethod metodo)) {
+            return false;
+        }
+        ResolvableType retorno = ResolvableType.forMethodReturnType(metodo.getMethod());
+        if (ResponseEntity.class.isAssignableFrom(retorno.toClass())) {
+            retorno = retorno.getGeneric(0);
+        }
+        return StreamingResponseBody.class.isAssignableFrom(retorno.toClass());
+    }
+
+    private boolean rechazar(HttpServletResponse response, HttpStatus estado, String motivo, String endpoint,
+            long reintentarEn, String mensaje) throws IOException {
+        Counter.builder(RECHAZOS)
+            .description("Peticiones rechazadas por el limitador")
+            .tag("motivo", motivo)
+            .tag("endpoint", endpoint)
+            .register(registro)
+            .increment();
+        response.setStatus(estado.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(reintentarEn));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(mensaje);
+        return false;
+    }
+
+    private record Cliente(String id, String endpoint) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.aut.edutech.limite;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+import java.util.Map;
+
+// capacidad: rafaga que admite el cubo de cada cliente y endpoint; porSegundo: tokens que se reponen por segundo.
+// soporte.limite.endpoints.<metodo de TicketController>.capacidad/.por-segundo sustituyen a los valores generales.
+// concurrencia: peticiones atendidas a la vez antes de responder 503; conviene dejarla poco por encima de
+// spring.datasource.hikari.maximum-pool-size para que no se acumulen hilos esperando conexion.
+// El cliente es la IP remota; la cabeceraCliente solo se acepta si la peticion llega desde una de las
+// direcciones de proxiesConfiables (la pasarela que la rellena), porque cualquier otro puede inventarla.
+@ConfigurationProperties(prefix = "soporte.limite")
+public record PropiedadesLimite(
+        @DefaultValue("true") boolean habilitado,
+        @DefaultValue("X-Client-Id") String cabeceraCliente,
+        @DefaultValue("100") int capacidad,
+        @DefaultValue("50") double porSegundo,
+        Map<String, Cuota> endpoints,
+        @DefaultValue("30") int concurrencia,
+        @DefaultValue("100000") long maximoClientes,
+        List<String> proxiesConfiables) {
+
+    public record Cuota(Integer capacidad, Double porSegundo) {
+    }
+
+    public PropiedadesLimite {
+        endpoints = endpoints != null ? Map.copyOf(endpoints) : Map.of();
+        proxiesConfiables = proxiesConfiables != null ? List.copyOf(proxiesConfiables) : List.of();
+    }
+
+    public Cuota cuota(String endpoint) {
+        Cuota propia = endpoints.get(endpoint);
+        if (propia == null) {
+            return new Cuota(capacidad, porSegundo);
+        }
+        return new Cuota(propia.capacidad() != null ? propia.capacidad() : capacidad,
+            propia.porSegundo() != null ? propia.porSegundo() : porSegundo);
+    }
+}
@@ -0,0 +1,75 @@
+package com.aut.edutech.metricas;
+
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.service.SolicitudInvalidaException;
+import com.aut.edutech.service.TransicionInvalidaException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+// Mide cada operacion publica de TicketService como 'tickets.operaciones', etiquetada por operacion,
+// resultado y por la categoria/estado del ticket devuelto. Va por fuera de la cache para contar tambien los aciertos.
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class TicketMetricasAspect {
+
+    static final String METRICA = "tickets.operaciones";
+    private static final String NINGUNO = "ninguno";
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Around("execution(public * com.aut.edutech.service.TicketService.*(..))")
+    public Object medir(ProceedingJoinPoint punto) throws Throwable {
+        Timer.Sample muestra = Timer.start(registro);
+        String resultado = "error";
+        Object retorno = null;
+        try {
+            retorno = punto.proceed();
+            resultado = encontrado(punto, retorno) ? "ok" : "no_encontrado";
+            return retorno;
+        } catch (OptimisticLockingFailureException | TransicionInvalidaException e) {
+            resultado = "conflicto";
+            throw e;
+        } catch (SolicitudInvalidaException e) {
+            resultado = "invalido";
+            throw e;
+        } finally {
+            Ticket ticket = ticketDe(retorno);
+            muestra.stop(Timer.builder(METRICA)
+                .description("Duracion de las operaciones de TicketService")
+                .tag("operacion", punto.getSignature().getName())
+                .tag("resultado", resultado)
+                .tag("categoria", ticket != null && ticket.getCategoriaTicket() != null
+                    ? ticket.getCategoriaTicket().name() : NINGUNO)
+                .tag("estado", ticket != null && ticket.getEstadoTicket() != null
+                    ? ticket.getEstadoTicket().name() : NINGUNO)
+                .register(registro));
+        }
+    }
+
+    private static boolean encontrado(ProceedingJoinPoint punto, Object retorno) {
+        if (((MethodSignature) punto.getSignature()).getReturnType() == void.class) {
+            return true;
+        }
+        return retorno instanceof Optional<?> opcional ? opcional.isPresent() : retorno != null;
+    }
+
+    private static Ticket ticketDe(Object retorno) {
+        if (retorno instanceof Optional<?> opcional) {
+            retorno = opcional.orElse(null);
+        }
+        return retorno instanceof Ticket ticket ? ticket : null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.aut.edutech.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// Idempotency-Key ya usada en POST /api/tickets. La clave primaria es la propia clave: el INSERT de reserva
+// falla (o espera al otro) si otra instancia la esta usando a la vez.
+@Entity
+@Table(name = "clave_idempotencia", indexes = {
+    @Index(name = "idx_clave_idempotencia_creada_en", columnList = "creada_en")
+})
+@Data
+@NoArgsConstructor
+public class ClaveIdempotencia implements Persistable<String> {
+    public static final int LONGITUD_MAXIMA = 255;
+
+    @Id
+    @Column(length = LONGITUD_MAXIMA)
+    private String clave;
+    // SHA-256 del cuerpo de la peticion original, para rechazar la misma clave con otro contenido
+    @Column(nullable = false, length = 64)
+    private String huella;
+    // null mientras la creacion esta en curso
+    private Long ticketId;
+    @Column(nullable = false)
+    private Instant creadaEn;
+
+    @Transient
+    private boolean nueva = true;
+
+    public ClaveIdempotencia(String clave, String huella, Instant creadaEn) {
+        this.clave = clave;
+        this.huella = huella;
+        this.creadaEn = creadaEn;
+    }
+
+    @Override
+    public String getId() {
+        return clave;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nueva;
+    }
+
+    @PostPersist
+    @PostLoad
+    void marcarPersistida() {
+        nueva = false;
+    }
+}
@@ -1,10 +1,38 @@
 package com.aut.edutech.model;
 
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum EstadoTicket {
     ABIERTO,
     CERRADO,
     FINALIZADO,
     PROGRESO,
     ASIGNADO,
-    CANCELADO
+    CANCELADO;
+
+    // maquina de estados: destinos permitidos desde cada estado; los terminales no vuelven a abrirse y
+    // FINALIZADO solo puede cerrarse
+    private static final Map<EstadoTicket, Set<EstadoTicket>> TRANSICIONES = Map.of(
+        ABIERTO, EnumSet.of(ASIGNADO, PROGRESO, CANCELADO, CERRADO),
+        ASIGNADO, EnumSet.of(PROGRESO, ABIERTO, CANCELADO),
+        PROGRESO, EnumSet.of(FINALIZADO, ASIGNADO, CANCELADO),
+        FINALIZADO, EnumSet.of(CERRADO),
+        CERRADO, EnumSet.noneOf(EstadoTicket.class),
+        CANCELADO, EnumSet.noneOf(EstadoTicket.class));
+
+    // un ticket en estado terminal ya no cuenta como carga abierta
+    public boolean esTerminal() {
+        return this == CERRADO || this == FINALIZADO || this == CANCELADO;
+    }
+
+    public boolean puedePasarA(EstadoTicket destino) {
+        return TRANSICIONES.get(this).contains(destino);
+    }
+
+    // los tickets sin estado (anteriores a la maquina de estados) pueden pasar a cualquiera
+    public static boolean transicionValida(EstadoTicket origen, EstadoTicket destino) {
+        return origen == null || origen == destino || origen.puedePasarA(destino);
+    }
 }
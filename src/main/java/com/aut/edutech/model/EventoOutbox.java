@@ -0,0 +1,54 @@
+package com.aut.edutech.model;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Evento pendiente de publicar, escrito en la misma transaccion que el cambio del ticket.
+// El relevo lo borra una vez publicado, asi que la tabla solo contiene lo que falta por entregar.
+@Entity
+@Table(name = "evento_outbox", indexes = @Index(name = "idx_evento_outbox_reclamo", columnList = "reclamo"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evento_outbox_seq")
+    @SequenceGenerator(name = "evento_outbox_seq", sequenceName = "evento_outbox_seq", allocationSize = 50)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TicketEvento.Tipo tipo;
+    @Column(nullable = false)
+    private Long ticketId;
+    // TicketEvento serializado (tipo, anterior, actual); se publica tal cual, sin volver a escapar.
+    // mediumtext en MySQL: con @Lob Hibernate generaba tinytext, limitado a 255 bytes
+    @JsonRawValue
+    @Column(nullable = false, length = 1_000_000)
+    private String payload;
+    @Column(nullable = false)
+    private Instant creadoEn;
+    // relevo que tiene el evento en curso de publicacion y desde cuando; no forman parte del evento publicado
+    @JsonIgnore
+    @Column(length = 36)
+    private String reclamo;
+    @JsonIgnore
+    private Instant reclamadoEn;
+}
@@ -5,29 +5,75 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
+import jakarta.persistence.Version;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
 
 @Entity
+@Table(indexes = {
+    // la clave primaria va implicita al final de cada indice, asi que el orden por id sale del propio indice
+    @Index(name = "idx_ticket_estado_categoria_asignado", columnList = "estado_ticket, categoria_ticket, asignadoa"),
+    @Index(name = "idx_ticket_asignado_estado", columnList = "asignadoa, estado_ticket"),
+    @Index(name = "idx_ticket_creado_por_estado", columnList = "creado_por, estado_ticket"),
+    // arranque del seguimiento de SLA: solo se leen los tickets sin resolver
+    @Index(name = "idx_ticket_resuelto_en", columnList = "resuelto_en"),
+    @Index(name = "idx_ticket_padre", columnList = "ticket_padre_id"),
+    // puesta al dia del indice de texto al arrancar (BusquedaTickets)
+    @Index(name = "idx_ticket_actualizado_en", columnList = "actualizado_en")
+})
+@DynamicUpdate
 @Data
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Ticket {
+    public static final int LONGITUD_TITULO = 50;
+    public static final int LONGITUD_DESCRIPCION = 1000;
+
+    // secuencia con asignacion por bloques (pooled) para que Hibernate pueda agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "ticket_seq", allocationSize = 50)
     private Long id;
-    @Column(nullable = false, length = 50)
+    @Column(nullable = false, length = LONGITUD_TITULO)
     private String titulo;
-    @Column(nullable = false, length = 1000)
+    @Column(nullable = false, length = LONGITUD_DESCRIPCION)
     private String descripcionTicket;
     @Enumerated(EnumType.STRING)
     private EstadoTicket estadoTicket;
+    // momento en que el ticket entro en su estado actual; lo mantiene TicketService
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant estadoDesde;
     @Enumerated(EnumType.STRING)
     private CategoriaTicket categoriaTicket;
     private String asignadoA;
     @Column(nullable = false)
     private String creadoPor;
-}
\ No newline at end of file
+    // marcas de tiempo para el SLA; las fija TicketService
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant creadoEn;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant actualizadoEn;
+    // se fija al entrar en un estado terminal y se borra si el ticket se reabre
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant resueltoEn;
+    // ticket original del que este es un duplicado casi identico; lo fija DetectorDuplicados al crear
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long ticketPadreId;
+    // se expone como ETag; el cliente no puede fijarlo en el cuerpo
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+}
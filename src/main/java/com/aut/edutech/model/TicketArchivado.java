@@ -0,0 +1,91 @@
+package com.aut.edutech.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// Copia de solo lectura de un ticket en estado terminal sacado de la tabla caliente por ArchivadorTickets.
+// Conserva el id original; como nunca se actualiza, isNew() es siempre true y save() inserta sin SELECT previo.
+@Entity
+@Immutable
+@Table(name = "ticket_archivado",
+    indexes = @Index(name = "idx_ticket_archivado_archivado_en", columnList = "archivado_en"))
+@Data
+@NoArgsConstructor
+public class TicketArchivado implements Persistable<Long> {
+    @Id
+    private Long id;
+    @Column(nullable = false, length = 50)
+    private String titulo;
+    @Column(nullable = false, length = 1000)
+    private String descripcionTicket;
+    @Enumerated(EnumType.STRING)
+    private EstadoTicket estadoTicket;
+    private Instant estadoDesde;
+    @Enumerated(EnumType.STRING)
+    private CategoriaTicket categoriaTicket;
+    private String asignadoA;
+    @Column(nullable = false)
+    private String creadoPor;
+    private Instant creadoEn;
+    private Instant actualizadoEn;
+    private Instant resueltoEn;
+    private Long ticketPadreId;
+    private Long version;
+    @Column(nullable = false)
+    private Instant archivadoEn;
+
+    public static TicketArchivado de(Ticket ticket, Instant archivadoEn) {
+        TicketArchivado archivado = new TicketArchivado();
+        archivado.setId(ticket.getId());
+        archivado.setTitulo(ticket.getTitulo());
+        archivado.setDescripcionTicket(ticket.getDescripcionTicket());
+        archivado.setEstadoTicket(ticket.getEstadoTicket());
+        archivado.setEstadoDesde(ticket.getEstadoDesde());
+        archivado.setCategoriaTicket(ticket.getCategoriaTicket());
+        archivado.setAsignadoA(ticket.getAsignadoA());
+        archivado.setCreadoPor(ticket.getCreadoPor());
+        archivado.setCreadoEn(ticket.getCreadoEn());
+        archivado.setActualizadoEn(ticket.getActualizadoEn());
+        archivado.setResueltoEn(ticket.getResueltoEn());
+        archivado.setTicketPadreId(ticket.getTicketPadreId());
+        archivado.setVersion(ticket.getVersion());
+        archivado.setArchivadoEn(archivadoEn);
+        return archivado;
+    }
+
+    public Ticket aTicket() {
+        return Ticket.builder()
+            .id(id)
+            .titulo(titulo)
+            .descripcionTicket(descripcionTicket)
+            .estadoTicket(estadoTicket)
+            .estadoDesde(estadoDesde)
+            .categoriaTicket(categoriaTicket)
+            .asignadoA(asignadoA)
+            .creadoPor(creadoPor)
+            .creadoEn(creadoEn)
+            .actualizadoEn(actualizadoEn)
+            .resueltoEn(resueltoEn)
+            .ticketPadreId(ticketPadreId)
+            .version(version)
+            .build();
+    }
+
+    @Override
+    @Transient
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,49 @@
+package com.aut.edutech.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+// Historial de cambios de estado, solo de insercion. segundosEnOrigen guarda cuanto estuvo el ticket en el
+// estado que abandona, asi el tiempo por estado es un AVG/MAX agrupado sin autojoins sobre la tabla.
+@Entity
+@Immutable
+@Table(name = "transicion_ticket", indexes = {
+    @Index(name = "idx_transicion_ticket", columnList = "ticket_id"),
+    @Index(name = "idx_transicion_origen_fecha", columnList = "estado_origen, fecha, segundos_en_origen"),
+    @Index(name = "idx_transicion_destino_fecha", columnList = "estado_destino, fecha")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransicionTicket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transicion_ticket_seq")
+    @SequenceGenerator(name = "transicion_ticket_seq", sequenceName = "transicion_ticket_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private Long ticketId;
+    // null en la creacion del ticket
+    @Enumerated(EnumType.STRING)
+    private EstadoTicket estadoOrigen;
+    @Enumerated(EnumType.STRING)
+    private EstadoTicket estadoDestino;
+    @Column(nullable = false)
+    private Instant fecha;
+    private Long segundosEnOrigen;
+}
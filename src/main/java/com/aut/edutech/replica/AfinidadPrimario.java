@@ -0,0 +1,59 @@
+package com.aut.edutech.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+// Las consultas (GET, HEAD, OPTIONS) pueden leer de las replicas. Lectura de lo recien escrito: una peticion
+// que modifica lee siempre del primario, y durante soporte.replicas.afinidad despues el mismo cliente tambien,
+// asi no ve una replica atrasada.
+// El recuerdo es local a cada instancia; detras de un balanceador conviene afinidad de sesion.
+public class AfinidadPrimario implements AsyncHandlerInterceptor {
+
+    private final PropiedadesReplicas propiedades;
+    private final Cache<String, Boolean> escrituras;
+
+    public AfinidadPrimario(PropiedadesReplicas propiedades) {
+        this.propiedades = propiedades;
+        this.escrituras = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(propiedades.afinidad())
+            .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!modifica(request) && escrituras.getIfPresent(cliente(request)) == null) {
+            ContextoLectura.usarReplicas();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        ContextoLectura.limpiar();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (modifica(request)) {
+            escrituras.put(cliente(request), Boolean.TRUE);
+        }
+        ContextoLectura.limpiar();
+    }
+
+    private static boolean modifica(HttpServletRequest request) {
+        HttpMethod metodo = HttpMethod.valueOf(request.getMethod());
+        return !(HttpMethod.GET.equals(metodo) || HttpMethod.HEAD.equals(metodo) || HttpMethod.OPTIONS.equals(metodo));
+    }
+
+    private String cliente(HttpServletRequest request) {
+        String cabecera = request.getHeader(propiedades.cabeceraCliente());
+        return cabecera != null && !cabecera.isBlank() ? cabecera : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,25 @@
+package com.aut.edutech.replica;
+
+// Marca por hilo que permite mandar a las replicas las transacciones de solo lectura. Solo la pone
+// AfinidadPrimario en las consultas HTTP (la exportacion NDJSON la copia al hilo asincrono que escribe la
+// respuesta); las tareas de fondo y las reconstrucciones al arrancar leen
+// siempre del primario, aunque los metodos de los repositorios sean readOnly por defecto.
+public final class ContextoLectura {
+
+    private static final ThreadLocal<Boolean> REPLICAS = new ThreadLocal<>();
+
+    private ContextoLectura() {
+    }
+
+    public static void usarReplicas() {
+        REPLICAS.set(Boolean.TRUE);
+    }
+
+    public static boolean enReplicas() {
+        return REPLICAS.get() != null;
+    }
+
+    public static void limpiar() {
+        REPLICAS.remove();
+    }
+}
@@ -0,0 +1,57 @@
+package com.aut.edutech.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Las transacciones readOnly de un hilo marcado con ContextoLectura.usarReplicas() van a las replicas por
+// turnos; todo lo demas, al primario. Debe ir detras de un LazyConnectionDataSourceProxy: la conexion
+// se pide al ejecutar la primera sentencia, cuando la marca readOnly de la transaccion ya esta fijada.
+public class DataSourceEnrutado extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARIO = "primario";
+
+    private final List<String> replicas;
+    private final AtomicInteger turno = new AtomicInteger();
+
+    public DataSourceEnrutado(DataSource primario, List<? extends DataSource> replicas) {
+        Map<Object, Object> destinos = new HashMap<>();
+        List<String> claves = new ArrayList<>();
+        destinos.put(PRIMARIO, primario);
+        for (int i = 0; i < replicas.size(); i++) {
+            claves.add("replica-" + i);
+            destinos.put(claves.get(i), replicas.get(i));
+        }
+        this.replicas = List.copyOf(claves);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !ContextoLectura.enReplicas()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARIO;
+        }
+        return replicas.get(Math.floorMod(turno.getAndIncrement(), replicas.size()));
+    }
+
+    // los pools de las replicas son de este DataSource; el del primario lo cierra su propio bean
+    @Override
+    public void close() throws IOException {
+        for (String replica : replicas) {
+            if (getResolvedDataSources().get(replica) instanceof Closeable pool) {
+                pool.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.aut.edutech.replica;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+// nodos: replicas de solo lectura; sin username/password usan los de spring.datasource.
+// afinidad: tiempo que un cliente (cabecera cabeceraCliente o IP) sigue leyendo del primario tras una escritura.
+@ConfigurationProperties(prefix = "soporte.replicas")
+public record PropiedadesReplicas(
+        @DefaultValue("false") boolean habilitado,
+        List<Nodo> nodos,
+        @DefaultValue("10") int pool,
+        @DefaultValue("PT5S") Duration afinidad,
+        @DefaultValue("X-Client-Id") String cabeceraCliente) {
+
+    public record Nodo(String url, String username, String password) {
+    }
+
+    public PropiedadesReplicas {
+        nodos = nodos != null ? List.copyOf(nodos) : List.of();
+    }
+}
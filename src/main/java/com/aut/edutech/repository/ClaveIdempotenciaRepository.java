@@ -0,0 +1,19 @@
+package com.aut.edutech.repository;
+
+import com.aut.edutech.model.ClaveIdempotencia;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    @Modifying
+    @Query("delete from ClaveIdempotencia c where c.creadaEn < :corte")
+    int borrarAnterioresA(@Param("corte") Instant corte);
+}
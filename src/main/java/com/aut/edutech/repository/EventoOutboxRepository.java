@@ -0,0 +1,39 @@
+package com.aut.edutech.repository;
+
+import com.aut.edutech.model.EventoOutbox;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    // sin reclamar o con el reclamo caducado; el bloqueo solo dura lo que tarda en marcarse el reclamo, asi dos
+    // relevos (p. ej. en dos instancias) no reclaman el mismo lote. Se salta un ticket mientras otro relevo tiene
+    // reclamado un evento anterior suyo: los eventos de un mismo ticket no se publican en paralelo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from EventoOutbox e where (e.reclamo is null or e.reclamadoEn < :caducado) "
+        + "and not exists (select o.id from EventoOutbox o where o.ticketId = e.ticketId and o.id < e.id "
+        + "and o.reclamo is not null and o.reclamadoEn >= :caducado) order by e.id")
+    List<EventoOutbox> buscarLibres(@Param("caducado") Instant caducado, Limit limite);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EventoOutbox e where e.reclamo = :reclamo")
+    int borrarReclamados(@Param("reclamo") String reclamo);
+
+    @Transactional
+    @Modifying
+    @Query("update EventoOutbox e set e.reclamo = null, e.reclamadoEn = null where e.reclamo = :reclamo")
+    int liberar(@Param("reclamo") String reclamo);
+}
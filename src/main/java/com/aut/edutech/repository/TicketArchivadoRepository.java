@@ -0,0 +1,18 @@
+package com.aut.edutech.repository;
+
+import com.aut.edutech.model.TicketArchivado;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TicketArchivadoRepository extends JpaRepository<TicketArchivado, Long> {
+
+    @Query("select a.id from TicketArchivado a where a.archivadoEn >= :desde")
+    List<Long> idsArchivadosDesde(@Param("desde") Instant desde);
+}
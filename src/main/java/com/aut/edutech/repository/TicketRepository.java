@@ -1,11 +1,117 @@
 package com.aut.edutech.repository;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
 import com.aut.edutech.model.Ticket;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface TicketRepository extends JpaRepository<Ticket, Long>{
-    
+public interface TicketRepository extends JpaRepository<Ticket, Long>, JpaSpecificationExecutor<Ticket>,
+        TicketRepositoryProyecciones {
+
+    // paginacion por cursor (keyset) sobre la clave primaria
+    List<Ticket> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    // recorrido completo con cursor de servidor; debe consumirse dentro de una transaccion
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select t from Ticket t order by t.id")
+    Stream<Ticket> streamTodosOrdenadosPorId();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select t from Ticket t where t.actualizadoEn >= :desde order by t.id")
+    Stream<Ticket> streamActualizadosDesde(@Param("desde") Instant desde);
+
+    // actualizaciones de una sola columna en una unica sentencia; con version nula no se comprueba
+    // la version esperada
+    // asignar un ticket ABIERTO lo pasa a ASIGNADO en la misma sentencia
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Ticket t set t.asignadoA = :usuarioId, t.actualizadoEn = :ahora, t.version = t.version + 1, "
+        + "t.estadoDesde = case when t.estadoTicket = com.aut.edutech.model.EstadoTicket.ABIERTO "
+        + "then :ahora else t.estadoDesde end, "
+        + "t.estadoTicket = case when t.estadoTicket = com.aut.edutech.model.EstadoTicket.ABIERTO "
+        + "then com.aut.edutech.model.EstadoTicket.ASIGNADO else t.estadoTicket end "
+        + "where t.id = :id and (:version is null or t.version = :version)")
+    int actualizarAsignadoA(@Param("id") Long id, @Param("usuarioId") String usuarioId,
+            @Param("version") Long version, @Param("ahora") Instant ahora);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Ticket t set t.categoriaTicket = :categoria, t.actualizadoEn = :ahora, t.version = t.version + 1 "
+        + "where t.id = :id and (:version is null or t.version = :version)")
+    int actualizarCategoria(@Param("id") Long id, @Param("categoria") CategoriaTicket categoria,
+            @Param("version") Long version, @Param("ahora") Instant ahora);
+
+    // agregados para recalcular los contadores de estadisticas
+    @Query("select t.estadoTicket as estado, t.categoriaTicket as categoria, count(t) as total "
+        + "from Ticket t group by t.estadoTicket, t.categoriaTicket")
+    List<ConteoEstadoCategoria> contarPorEstadoYCategoria();
+
+    @Query("select t.asignadoA as agente, count(t) as total from Ticket t "
+        + "where t.asignadoA is not null and (t.estadoTicket is null or t.estadoTicket not in :terminales) "
+        + "group by t.asignadoA")
+    List<CargaAgente> contarAbiertosPorAgente(@Param("terminales") Collection<EstadoTicket> terminales);
+
+    // tickets abiertos para reconstruir el indice de vencimientos de SLA al arrancar
+    @Query("select t.id as id, t.categoriaTicket as categoria, t.asignadoA as asignadoA, t.creadoEn as creadoEn "
+        + "from Ticket t where t.resueltoEn is null and t.creadoEn is not null "
+        + "and (t.estadoTicket is null or t.estadoTicket not in :terminales)")
+    List<PendienteSla> buscarPendientesSla(@Param("terminales") Collection<EstadoTicket> terminales);
+
+    // tickets abiertos recientes para reconstruir el indice de duplicados al arrancar
+    @Query("select t from Ticket t where t.resueltoEn is null and t.creadoEn >= :desde "
+        + "and (t.estadoTicket is null or t.estadoTicket not in :terminales) order by t.creadoEn")
+    List<Ticket> buscarAbiertosDesde(@Param("terminales") Collection<EstadoTicket> terminales,
+            @Param("desde") Instant desde);
+
+    List<Ticket> findByTicketPadreIdOrderByIdAsc(Long ticketPadreId);
+
+    // candidatos a archivar, por cursor sobre el id; los tickets terminales sin resueltoEn son anteriores
+    // al seguimiento de SLA y se consideran lo bastante antiguos
+    @Query("select t.id from Ticket t where t.estadoTicket in :terminales "
+        + "and (t.resueltoEn is null or t.resueltoEn < :corte) and t.id > :despuesDe order by t.id")
+    List<Long> buscarIdsArchivables(@Param("terminales") Collection<EstadoTicket> terminales,
+            @Param("corte") Instant corte, @Param("despuesDe") Long despuesDe, Limit limite);
+
+    // bloquea solo el bloque que se va a mover y vuelve a comprobar el estado por si cambio desde la busqueda
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Ticket t where t.id in :ids and t.estadoTicket in :terminales "
+        + "and (t.resueltoEn is null or t.resueltoEn < :corte)")
+    List<Ticket> bloquearArchivables(@Param("ids") Collection<Long> ids,
+            @Param("terminales") Collection<EstadoTicket> terminales, @Param("corte") Instant corte);
+
+    interface ConteoEstadoCategoria {
+        EstadoTicket getEstado();
+        CategoriaTicket getCategoria();
+        long getTotal();
+    }
+
+    interface CargaAgente {
+        String getAgente();
+        long getTotal();
+    }
+
+    interface PendienteSla {
+        Long getId();
+        CategoriaTicket getCategoria();
+        String getAsignadoA();
+        Instant getCreadoEn();
+    }
 }
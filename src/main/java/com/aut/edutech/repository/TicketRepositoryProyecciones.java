@@ -0,0 +1,23 @@
+package com.aut.edutech.repository;
+
+import com.aut.edutech.model.Ticket;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Proyecciones con los campos que pide el cliente (?fields=): el SELECT solo lleva esas columnas.
+// CAMPOS es la lista blanca de lo que el cliente puede pedir.
+public interface TicketRepositoryProyecciones {
+
+    Set<String> CAMPOS = Set.of("id", "titulo", "descripcionTicket", "estadoTicket", "estadoDesde",
+        "categoriaTicket", "asignadoA", "creadoPor", "creadoEn", "actualizadoEn", "resueltoEn",
+        "ticketPadreId", "version");
+
+    // ordenado por id; el id va siempre el primero aunque no se pida, lo necesitan el enlace y el cursor.
+    // Los campos ya vienen validados contra CAMPOS (TicketService); uno que no sea atributo de Ticket falla igual
+    List<Map<String, Object>> buscarCampos(Specification<Ticket> filtro, Collection<String> campos, int limite);
+}
@@ -0,0 +1,54 @@
+package com.aut.edutech.repository;
+
+import com.aut.edutech.model.Ticket;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class TicketRepositoryProyeccionesImpl implements TicketRepositoryProyecciones {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> buscarCampos(Specification<Ticket> filtro, Collection<String> campos,
+            int limite) {
+        Set<String> seleccion = new LinkedHashSet<>();
+        seleccion.add("id");
+        seleccion.addAll(campos);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Ticket> ticket = consulta.from(Ticket.class);
+        consulta.multiselect(seleccion.stream().<Selection<?>>map(c -> ticket.get(c).alias(c)).toList());
+        // una Specification sin ningun criterio devuelve un predicado nulo
+        Predicate condicion = filtro != null ? filtro.toPredicate(ticket, consulta, cb) : null;
+        if (condicion != null) {
+            consulta.where(condicion);
+        }
+        consulta.orderBy(cb.asc(ticket.get("id")));
+        return entityManager.createQuery(consulta).setMaxResults(limite).getResultStream()
+            .map(fila -> {
+                Map<String, Object> valores = new LinkedHashMap<>();
+                for (TupleElement<?> elemento : fila.getElements()) {
+                    valores.put(elemento.getAlias(), fila.get(elemento));
+                }
+                return valores;
+            })
+            .toList();
+    }
+}
@@ -0,0 +1,39 @@
+package com.aut.edutech.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+
+// filtros combinables para TicketRepository; un criterio nulo no restringe la consulta
+public final class TicketSpecifications {
+
+    private TicketSpecifications() {
+    }
+
+    public static Specification<Ticket> conEstado(EstadoTicket estado) {
+        return estado == null ? null
+            : (root, query, cb) -> cb.equal(root.get("estadoTicket"), estado);
+    }
+
+    public static Specification<Ticket> conCategoria(CategoriaTicket categoria) {
+        return categoria == null ? null
+            : (root, query, cb) -> cb.equal(root.get("categoriaTicket"), categoria);
+    }
+
+    public static Specification<Ticket> asignadoA(String usuarioId) {
+        return usuarioId == null ? null
+            : (root, query, cb) -> cb.equal(root.get("asignadoA"), usuarioId);
+    }
+
+    public static Specification<Ticket> creadoPor(String usuarioId) {
+        return usuarioId == null ? null
+            : (root, query, cb) -> cb.equal(root.get("creadoPor"), usuarioId);
+    }
+
+    public static Specification<Ticket> idMayorQue(Long id) {
+        return id == null ? null
+            : (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+}
@@ -0,0 +1,41 @@
+package com.aut.edutech.repository;
+
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.TransicionTicket;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TransicionTicketRepository extends JpaRepository<TransicionTicket, Long> {
+
+    List<TransicionTicket> findByTicketIdOrderByIdAsc(Long ticketId);
+
+    // tiempo en cada estado de los tickets que salieron de el en [desde, hasta); usa idx_transicion_origen_fecha
+    @Query("select t.estadoOrigen as estado, count(t) as total, avg(t.segundosEnOrigen) as mediaSegundos, "
+        + "max(t.segundosEnOrigen) as maximoSegundos from TransicionTicket t "
+        + "where t.estadoOrigen is not null and t.fecha >= :desde and t.fecha < :hasta group by t.estadoOrigen")
+    List<TiempoEnEstado> tiempoEnEstado(@Param("desde") Instant desde, @Param("hasta") Instant hasta);
+
+    // tickets que entraron en cada estado en [desde, hasta); usa idx_transicion_destino_fecha
+    @Query("select t.estadoDestino as estado, count(t) as total from TransicionTicket t "
+        + "where t.estadoDestino is not null and t.fecha >= :desde and t.fecha < :hasta group by t.estadoDestino")
+    List<EntradasEnEstado> entradasPorEstado(@Param("desde") Instant desde, @Param("hasta") Instant hasta);
+
+    interface TiempoEnEstado {
+        EstadoTicket getEstado();
+        long getTotal();
+        Double getMediaSegundos();
+        Long getMaximoSegundos();
+    }
+
+    interface EntradasEnEstado {
+        EstadoTicket getEstado();
+        long getTotal();
+    }
+}
@@ -0,0 +1,92 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.model.TicketArchivado;
+import com.aut.edutech.repository.TicketArchivadoRepository;
+import com.aut.edutech.repository.TicketRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+// Mueve los tickets terminales resueltos hace mas de soporte.archivo.antiguedad a ticket_archivado.
+// Cada bloque de soporte.archivo.lote tickets va en su propia transaccion corta: bloquea las filas, inserta las
+// copias en lote, borra los originales con un unico DELETE ... IN y publica un evento ARCHIVADO por ticket
+// para que contadores, indice de texto y outbox lo den de baja.
+@Service
+public class ArchivadorTickets {
+
+    private static final List<EstadoTicket> TERMINALES = Arrays.stream(EstadoTicket.values())
+        .filter(EstadoTicket::esTerminal).toList();
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TicketArchivadoRepository archivadoRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Value("${soporte.archivo.antiguedad:P30D}")
+    private Duration antiguedad;
+
+    @Value("${soporte.archivo.lote:500}")
+    private int tamanoLote;
+
+    @Scheduled(fixedDelayString = "${soporte.archivo.intervalo:PT1H}",
+        initialDelayString = "${soporte.archivo.intervalo:PT1H}")
+    public int archivar() {
+        Instant corte = Instant.now().minus(antiguedad);
+        int archivados = 0;
+        long despuesDe = 0;
+        List<Long> ids;
+        do {
+            ids = ticketRepository.buscarIdsArchivables(TERMINALES, corte, despuesDe, Limit.of(tamanoLote));
+            if (!ids.isEmpty()) {
+                archivados += archivarBloque(ids, corte);
+                despuesDe = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == tamanoLote);
+        return archivados;
+    }
+
+    private int archivarBloque(List<Long> ids, Instant corte) {
+        Integer movidos = transactionTemplate.execute(estado -> {
+            List<Ticket> tickets = ticketRepository.bloquearArchivables(ids, TERMINALES, corte);
+            if (tickets.isEmpty()) {
+                return 0;
+            }
+            Instant ahora = Instant.now();
+            archivadoRepository.saveAll(tickets.stream().map(t -> TicketArchivado.de(t, ahora)).toList());
+            List<Long> movibles = tickets.stream().map(Ticket::getId).toList();
+            entityManager.flush();
+            ticketRepository.deleteAllByIdInBatch(movibles);
+            tickets.forEach(t -> eventos.publishEvent(
+                new TicketEvento(TicketEvento.Tipo.ARCHIVADO, t.toBuilder().build(), null)));
+            entityManager.flush();
+            entityManager.clear();
+            return tickets.size();
+        });
+        return movidos != null ? movidos : 0;
+    }
+}
@@ -0,0 +1,266 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketArchivadoRepository;
+import com.aut.edutech.repository.TicketRepository;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.es.SpanishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Indice invertido de Lucene sobre titulo y descripcionTicket, mantenido con los TicketEvento confirmados; los
+// cambios se hacen visibles a las busquedas (NRT) cada soporte.busqueda.refresco sin necesidad de hacer commit.
+// Cada soporte.busqueda.confirmacion se hace commit guardando en sus datos de usuario el formato del indice y el
+// mayor actualizadoEn indexado. Al arrancar, un indice en disco con ese commit solo se pone al dia (tickets
+// actualizados y archivados desde esa marca menos soporte.busqueda.margen, que cubre las transacciones que se
+// confirmaron tarde); si falta, es de otro formato o el indice vive en memoria, se reconstruye entero.
+@Service
+public class BusquedaTickets {
+
+    static final String ID = "id";
+    static final String TITULO = "titulo";
+    static final String DESCRIPCION = "descripcionTicket";
+
+    // no se pagina mas alla de este numero de coincidencias
+    public static final int MAXIMO_RESULTADOS = 1000;
+
+    private static final String[] CAMPOS = {TITULO, DESCRIPCION};
+
+    // datos de usuario del commit; cambiar FORMATO al cambiar los campos fuerza una reconstruccion completa
+    static final String CLAVE_FORMATO = "formato";
+    static final String CLAVE_ACTUALIZADO_HASTA = "actualizadoHasta";
+    private static final String FORMATO = "1";
+
+    // con offsets en el indice el resaltado no necesita volver a analizar el texto
+    private static final FieldType TEXTO = new FieldType(TextField.TYPE_STORED);
+    static {
+        TEXTO.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TEXTO.freeze();
+    }
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TicketArchivadoRepository archivadoRepository;
+
+    @Value("${soporte.busqueda.margen:PT5M}")
+    private Duration margen;
+
+    private final Analyzer analyzer = new SpanishAnalyzer();
+    private final Directory directorio;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    // mayor actualizadoEn indexado hasta ahora; se guarda en cada commit, pero no antes de que reconstruir() acabe:
+    // un commit a medias con la marca haria creer al siguiente arranque que el indice esta completo
+    private final AtomicReference<Instant> actualizadoHasta = new AtomicReference<>();
+    private volatile boolean alDia;
+
+    // sin directorio configurado el indice vive en memoria; en disco se abre el indice existente (o se crea si no
+    // lo hay) y reconstruir() lo pone al dia al arrancar
+    public BusquedaTickets(@Value("${soporte.busqueda.directorio:}") String directorio) throws IOException {
+        this.directorio = directorio.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(directorio));
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+            .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.writer = new IndexWriter(this.directorio, config);
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() throws IOException {
+        Instant marca = marcaConfirmada();
+        if (marca == null) {
+            // lo confirmado antes de empezar sale en la exportacion y lo posterior llega por los eventos
+            Instant inicio = Instant.now();
+            writer.deleteAll();
+            ticketService.exportarTickets(this::indexar);
+            avanzarMarca(inicio);
+        } else {
+            Instant desde = marca.minus(margen);
+            avanzarMarca(marca);
+            ticketService.exportarTicketsActualizadosDesde(desde, this::indexar);
+            archivadoRepository.idsArchivadosDesde(desde).forEach(this::quitar);
+        }
+        alDia = true;
+        confirmar();
+        searcherManager.maybeRefresh();
+    }
+
+    // hasta cuando recoge el ultimo commit los cambios de la base de datos; null si hay que reconstruir
+    private Instant marcaConfirmada() {
+        Map<String, String> datos = new HashMap<>();
+        Iterable<Map.Entry<String, String>> confirmados = writer.getLiveCommitData();
+        if (confirmados != null) {
+            confirmados.forEach(dato -> datos.put(dato.getKey(), dato.getValue()));
+        }
+        String hasta = datos.get(CLAVE_ACTUALIZADO_HASTA);
+        return FORMATO.equals(datos.get(CLAVE_FORMATO)) && hasta != null ? Instant.parse(hasta) : null;
+    }
+
+    @Scheduled(fixedDelayString = "${soporte.busqueda.confirmacion:PT1M}")
+    public void confirmar() throws IOException {
+        if (!alDia) {
+            return;
+        }
+        Map<String, String> datos = Map.of(CLAVE_FORMATO, FORMATO,
+            CLAVE_ACTUALIZADO_HASTA, actualizadoHasta.get().toString());
+        writer.setLiveCommitData(datos.entrySet());
+        writer.commit();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarTicket(TicketEvento evento) {
+        if (evento.actual() != null) {
+            indexar(evento.actual());
+        } else {
+            quitar(evento.ticketId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${soporte.busqueda.refresco:PT1S}")
+    public void refrescar() throws IOException {
+        searcherManager.maybeRefresh();
+    }
+
+    // q admite la sintaxis de SimpleQueryParser ("frase exacta", -excluir, prefijo*); el titulo pesa el doble
+    public ResultadoBusqueda buscar(String q, int pagina, int tamano) throws IOException {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, Map.of(TITULO, 2f, DESCRIPCION, 1f));
+        Query consulta = parser.parse(q);
+        int desde = (int) Math.min((long) pagina * tamano, MAXIMO_RESULTADOS);
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(consulta, Math.min(desde + tamano, MAXIMO_RESULTADOS));
+            ScoreDoc[] hits = Arrays.copyOfRange(top.scoreDocs, Math.min(desde, top.scoreDocs.length),
+                top.scoreDocs.length);
+            if (hits.length == 0) {
+                return new ResultadoBusqueda(List.of(), top.totalHits.value);
+            }
+
+            int[] docIds = Arrays.stream(hits).mapToInt(h -> h.doc).toArray();
+            int[] pasajes = new int[CAMPOS.length];
+            Arrays.fill(pasajes, 2);
+            // el texto lo escribe el usuario: se escapa como HTML y solo las etiquetas <b> del resaltado quedan sin escapar
+            Map<String, String[]> resaltados = UnifiedHighlighter.builder(searcher, analyzer)
+                .withMaxNoHighlightPassages(0)
+                .withFormatter(new DefaultPassageFormatter("<b>", "</b>", "... ", true))
+                .build()
+                .highlightFields(CAMPOS, consulta, docIds, pasajes);
+
+            StoredFields almacenados = searcher.storedFields();
+            List<Long> ids = new ArrayList<>(hits.length);
+            for (ScoreDoc hit : hits) {
+                ids.add(Long.valueOf(almacenados.document(hit.doc).get(ID)));
+            }
+            // el ticket se lee de la base de datos para no devolver una copia desactualizada del indice
+            Map<Long, Ticket> tickets = ticketRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Ticket::getId, Function.identity()));
+
+            List<TicketEncontrado> encontrados = new ArrayList<>(hits.length);
+            for (int i = 0; i < hits.length; i++) {
+                Ticket ticket = tickets.get(ids.get(i));
+                if (ticket == null) {
+                    continue;
+                }
+                Map<String, String> fragmentos = new LinkedHashMap<>();
+                for (String campo : CAMPOS) {
+                    String fragmento = resaltados.get(campo)[i];
+                    if (fragmento != null) {
+                        fragmentos.put(campo, fragmento);
+                    }
+                }
+                encontrados.add(new TicketEncontrado(ticket, hits[i].score, fragmentos));
+            }
+            return new ResultadoBusqueda(encontrados, top.totalHits.value);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private void indexar(Ticket ticket) {
+        if (ticket.getActualizadoEn() != null) {
+            avanzarMarca(ticket.getActualizadoEn());
+        }
+        Document documento = new Document();
+        String id = String.valueOf(ticket.getId());
+        documento.add(new StringField(ID, id, Field.Store.YES));
+        if (ticket.getTitulo() != null) {
+            documento.add(new Field(TITULO, ticket.getTitulo(), TEXTO));
+        }
+        if (ticket.getDescripcionTicket() != null) {
+            documento.add(new Field(DESCRIPCION, ticket.getDescripcionTicket(), TEXTO));
+        }
+        try {
+            writer.updateDocument(new Term(ID, id), documento);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void avanzarMarca(Instant instante) {
+        actualizadoHasta.accumulateAndGet(instante,
+            (actual, nuevo) -> actual == null || nuevo.isAfter(actual) ? nuevo : actual);
+    }
+
+    private void quitar(Long id) {
+        try {
+            writer.deleteDocuments(new Term(ID, String.valueOf(id)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() throws IOException {
+        confirmar();
+        searcherManager.close();
+        writer.close();
+        directorio.close();
+    }
+}
@@ -0,0 +1,13 @@
+package com.aut.edutech.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// La Idempotency-Key ya se uso con otro cuerpo o su creacion sigue en curso en otra instancia; se responde 409.
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictoIdempotenciaException extends RuntimeException {
+
+    public ConflictoIdempotenciaException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,7 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.model.Ticket;
+
+// repetida: el ticket ya existia para esa Idempotency-Key y no se ha creado otro
+public record CreacionIdempotente(Ticket ticket, boolean repetida) {
+}
@@ -0,0 +1,364 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+// Detecta tickets casi identicos (p. ej. durante una caida) entre los abiertos de la misma categoria
+// creados en la ultima soporte.duplicados.ventana.
+// - Cada ticket se resume en una firma MinHash de FUNCIONES valores sobre los 4-gramas de caracteres de
+//   titulo + descripcion normalizados (sin tildes, minusculas, solo letras y digitos).
+// - La firma se parte en BANDAS de FILAS valores; dos tickets son candidatos si coinciden en alguna banda
+//   entera (LSH), asi que solo se comparan los pocos tickets que comparten cubeta, no todos los abiertos.
+// - Un candidato es duplicado si la fraccion de valores iguales (estimacion de Jaccard) llega a
+//   soporte.duplicados.umbral. El nuevo ticket queda enlazado a la raiz del grupo y, si no trae agente,
+//   se le asigna el de esa raiz en lugar de enrutarlo por separado.
+// Un ticket creado dentro de una transaccion solo puede ser padre de otros de esa misma transaccion (p. ej. el
+// mismo bloque de /lote) hasta que se confirma; si hace rollback su firma nunca llega al indice.
+// Las firmas salen del indice al caducar la ventana y al cerrarse o archivarse el ticket. Al arrancar se
+// reconstruye con los tickets abiertos dentro de la ventana.
+@Service
+public class DetectorDuplicados {
+
+    private static final List<EstadoTicket> TERMINALES = Arrays.stream(EstadoTicket.values())
+        .filter(EstadoTicket::esTerminal).toList();
+
+    static final int FUNCIONES = 64;
+    static final int FILAS = 4;
+    static final int BANDAS = FUNCIONES / FILAS;
+    private static final int LONGITUD_SHINGLE = 4;
+    private static final long[] SEMILLAS = new SplittableRandom(0x5EEDL).longs(FUNCIONES).toArray();
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Value("${soporte.duplicados.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${soporte.duplicados.ventana:PT2H}")
+    private Duration ventana;
+
+    @Value("${soporte.duplicados.umbral:0.6}")
+    private double umbral;
+
+    // todas las estructuras se protegen con 'cerrojo'; cada operacion es de microsegundos. Es un ReentrantLock y no
+    // un monitor para no anclar el hilo portador cuando las peticiones corren en hilos virtuales
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final Map<Long, Firma> firmas = new HashMap<>();
+    private final Map<Long, List<Firma>> cubetas = new HashMap<>();
+    private final ArrayDeque<Firma> porAntiguedad = new ArrayDeque<>();
+
+    // se llama antes de guardar el ticket nuevo (aun sin id)
+    public void enlazar(Ticket ticket) {
+        if (!habilitado || ticket.getCategoriaTicket() == null || ticket.getTicketPadreId() != null) {
+            return;
+        }
+        long[] minhash = minhash(ticket);
+        Instant ahora = Instant.now();
+        Firma padre = buscar(ticket.getCategoriaTicket(), minhash, ahora);
+        Pendientes pendientes = pendientes(false);
+        if (pendientes != null) {
+            padre = mejor(pendientes.cubetas, ticket.getCategoriaTicket(), minhash, ahora.minus(ventana), padre);
+        }
+        if (padre != null) {
+            ticket.setTicketPadreId(padre.raiz());
+            if (ticket.getAsignadoA() == null) {
+                ticket.setAsignadoA(padre.asignadoA());
+            }
+        }
+    }
+
+    // se llama con el ticket ya guardado (con id); dentro de una transaccion la firma se publica al confirmarse
+    public void indexar(Ticket ticket) {
+        Firma firma = firma(ticket);
+        if (firma == null) {
+            return;
+        }
+        Pendientes pendientes = pendientes(true);
+        if (pendientes != null) {
+            pendientes.anadir(firma);
+        } else {
+            publicar(firma);
+        }
+    }
+
+    private Firma firma(Ticket ticket) {
+        if (!habilitado || ticket.getId() == null || ticket.getCategoriaTicket() == null
+                || ticket.getCreadoEn() == null
+                || (ticket.getEstadoTicket() != null && ticket.getEstadoTicket().esTerminal())) {
+            return null;
+        }
+        return new Firma(ticket.getId(), ticket.getCategoriaTicket(), minhash(ticket),
+            ticket.getTicketPadreId() != null ? ticket.getTicketPadreId() : ticket.getId(),
+            ticket.getAsignadoA(), ticket.getCreadoEn());
+    }
+
+    private void publicar(Firma firma) {
+        cerrojo.lock();
+        try {
+            if (firma.creadoEn().isBefore(Instant.now().minus(ventana))) {
+                return;
+            }
+            quitarFirma(firmas.get(firma.id()));
+            firmas.put(firma.id(), firma);
+            for (int banda = 0; banda < BANDAS; banda++) {
+                cubetas.computeIfAbsent(claveBanda(firma.categoria(), firma.minhash(), banda),
+                    c -> new ArrayList<>(2)).add(firma);
+            }
+            porAntiguedad.addLast(firma);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    public int tamano() {
+        cerrojo.lock();
+        try {
+            return firmas.size();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        if (!habilitado) {
+            return;
+        }
+        cerrojo.lock();
+        try {
+            firmas.clear();
+            cubetas.clear();
+            porAntiguedad.clear();
+        } finally {
+            cerrojo.unlock();
+        }
+        ticketRepository.buscarAbiertosDesde(TERMINALES, Instant.now().minus(ventana)).forEach(ticket -> {
+            Firma firma = firma(ticket);
+            if (firma != null) {
+                publicar(firma);
+            }
+        });
+    }
+
+    // la creacion ya se indexo al guardar; el resto de cambios se aplican una vez confirmados
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarTicket(TicketEvento evento) {
+        if (evento.tipo() == TicketEvento.Tipo.CREADO) {
+            return;
+        }
+        Ticket actual = evento.actual();
+        if (actual == null || (actual.getEstadoTicket() != null && actual.getEstadoTicket().esTerminal())) {
+            quitar(evento.ticketId());
+        } else if (contiene(actual.getId())) {
+            // texto, categoria o agente pueden haber cambiado; el cambio ya esta confirmado
+            Firma firma = firma(actual);
+            if (firma != null) {
+                publicar(firma);
+            }
+        }
+    }
+
+    // firmas de la transaccion en curso, pendientes de confirmar; null fuera de una transaccion
+    private Pendientes pendientes(boolean crear) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Pendientes pendientes = (Pendientes) TransactionSynchronizationManager.getResource(this);
+        if (pendientes == null && crear) {
+            pendientes = new Pendientes();
+            TransactionSynchronizationManager.bindResource(this, pendientes);
+            TransactionSynchronizationManager.registerSynchronization(pendientes);
+        }
+        return pendientes;
+    }
+
+    private boolean contiene(Long id) {
+        cerrojo.lock();
+        try {
+            return firmas.containsKey(id);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private void quitar(Long id) {
+        cerrojo.lock();
+        try {
+            quitarFirma(firmas.get(id));
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private Firma buscar(CategoriaTicket categoria, long[] minhash, Instant ahora) {
+        Instant corte = ahora.minus(ventana);
+        cerrojo.lock();
+        try {
+            caducar(corte);
+            return mejor(cubetas, categoria, minhash, corte, null);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    // la candidata con mas coincidencias a partir del umbral; 'actual' es la mejor encontrada hasta ahora
+    private Firma mejor(Map<Long, List<Firma>> cubetas, CategoriaTicket categoria, long[] minhash, Instant corte,
+            Firma actual) {
+        Firma mejor = actual;
+        int mejorCoincidencias = actual != null ? coincidencias(minhash, actual.minhash())
+            : (int) Math.ceil(umbral * FUNCIONES) - 1;
+        for (int banda = 0; banda < BANDAS; banda++) {
+            List<Firma> candidatas = cubetas.get(claveBanda(categoria, minhash, banda));
+            if (candidatas == null) {
+                continue;
+            }
+            for (Firma candidata : candidatas) {
+                if (candidata.categoria() != categoria || candidata.creadoEn().isBefore(corte)) {
+                    continue;
+                }
+                int coincidencias = coincidencias(minhash, candidata.minhash());
+                if (coincidencias > mejorCoincidencias) {
+                    mejorCoincidencias = coincidencias;
+                    mejor = candidata;
+                }
+            }
+        }
+        return mejor;
+    }
+
+    // las firmas entran en orden de creacion; una reindexada puede quedar detras de otras mas nuevas y
+    // entonces sale algo mas tarde, pero buscar() ya la ignora al pasar el corte
+    private void caducar(Instant corte) {
+        while (!porAntiguedad.isEmpty() && porAntiguedad.peekFirst().creadoEn().isBefore(corte)) {
+            Firma firma = porAntiguedad.pollFirst();
+            if (firmas.get(firma.id()) == firma) {
+                quitarFirma(firma);
+            }
+        }
+    }
+
+    private void quitarFirma(Firma firma) {
+        if (firma == null) {
+            return;
+        }
+        firmas.remove(firma.id(), firma);
+        for (int banda = 0; banda < BANDAS; banda++) {
+            long clave = claveBanda(firma.categoria(), firma.minhash(), banda);
+            List<Firma> cubeta = cubetas.get(clave);
+            if (cubeta != null) {
+                cubeta.remove(firma);
+                if (cubeta.isEmpty()) {
+                    cubetas.remove(clave);
+                }
+            }
+        }
+        // en porAntiguedad se deja y se descarta al caducar
+    }
+
+    static long[] minhash(Ticket ticket) {
+        String texto = normalizar(ticket.getTitulo() + " " + ticket.getDescripcionTicket());
+        long[] minimos = new long[FUNCIONES];
+        Arrays.fill(minimos, Long.MAX_VALUE);
+        int shingles = Math.max(1, texto.length() - LONGITUD_SHINGLE + 1);
+        for (int inicio = 0; inicio < shingles; inicio++) {
+            long hash = 0;
+            for (int i = inicio; i < Math.min(texto.length(), inicio + LONGITUD_SHINGLE); i++) {
+                hash = hash * 31 + texto.charAt(i);
+            }
+            hash = mezclar(hash);
+            for (int f = 0; f < FUNCIONES; f++) {
+                long valor = mezclar(hash ^ SEMILLAS[f]);
+                if (valor < minimos[f]) {
+                    minimos[f] = valor;
+                }
+            }
+        }
+        return minimos;
+    }
+
+    static int coincidencias(long[] a, long[] b) {
+        int iguales = 0;
+        for (int f = 0; f < FUNCIONES; f++) {
+            if (a[f] == b[f]) {
+                iguales++;
+            }
+        }
+        return iguales;
+    }
+
+    private static String normalizar(String texto) {
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(sinMarcas.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static long claveBanda(CategoriaTicket categoria, long[] minhash, int banda) {
+        long clave = categoria.ordinal() * 0x9E3779B97F4A7C15L + banda;
+        for (int fila = banda * FILAS; fila < (banda + 1) * FILAS; fila++) {
+            clave = mezclar(clave ^ minhash[fila]);
+        }
+        return clave;
+    }
+
+    // finalizador de SplitMix64
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private final class Pendientes implements TransactionSynchronization {
+
+        private final List<Firma> firmas = new ArrayList<>();
+        private final Map<Long, List<Firma>> cubetas = new HashMap<>();
+
+        private void anadir(Firma firma) {
+            firmas.add(firma);
+            for (int banda = 0; banda < BANDAS; banda++) {
+                cubetas.computeIfAbsent(claveBanda(firma.categoria(), firma.minhash(), banda),
+                    c -> new ArrayList<>(2)).add(firma);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            firmas.forEach(DetectorDuplicados.this::publicar);
+        }
+
+        @Override
+        public void afterCompletion(int estado) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DetectorDuplicados.this);
+        }
+    }
+
+    private record Firma(Long id, CategoriaTicket categoria, long[] minhash, Long raiz, String asignadoA,
+            Instant creadoEn) {
+    }
+}
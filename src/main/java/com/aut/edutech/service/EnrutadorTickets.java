@@ -0,0 +1,193 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Asigna los tickets nuevos sin asignadoA a un agente del pool de su categoria.
+// La carga abierta de cada agente vive en un AtomicInteger: se reserva al enrutar (CAS, sin bloqueos ni
+// consultas), se devuelve si la transaccion de la creacion no llega a confirmarse (falle donde falle: al guardar,
+// al indexar o despues), se ajusta con los eventos confirmados posteriores y se recalcula periodicamente contra la BD.
+// Los mapas se construyen al arrancar y no cambian, asi que las lecturas del camino caliente no sincronizan.
+@Service
+@EnableConfigurationProperties(PropiedadesEnrutamiento.class)
+public class EnrutadorTickets {
+
+    private static final List<EstadoTicket> TERMINALES = Arrays.stream(EstadoTicket.values())
+        .filter(EstadoTicket::esTerminal).toList();
+
+    @Autowired
+    private PropiedadesEnrutamiento propiedades;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    private Map<String, AtomicInteger> cargas = Map.of();
+    private Map<CategoriaTicket, Pool> pools = Map.of();
+
+    @PostConstruct
+    void iniciar() {
+        Map<String, AtomicInteger> nuevasCargas = new HashMap<>();
+        Map<CategoriaTicket, Pool> nuevosPools = new EnumMap<>(CategoriaTicket.class);
+        propiedades.pools().forEach((categoria, agentes) -> {
+            if (!agentes.isEmpty()) {
+                // un agente en varios pools comparte el mismo contador
+                AtomicInteger[] contadores = agentes.stream()
+                    .map(agente -> nuevasCargas.computeIfAbsent(agente, a -> new AtomicInteger()))
+                    .toArray(AtomicInteger[]::new);
+                nuevosPools.put(categoria, new Pool(agentes.toArray(String[]::new), contadores));
+            }
+        });
+        cargas = Map.copyOf(nuevasCargas);
+        pools = nuevosPools;
+    }
+
+    // se llama antes de guardar el ticket; reserva la carga de quien queda asignado. Dentro de una transaccion
+    // la reserva se devuelve si hace rollback
+    public void enrutar(Ticket ticket) {
+        if (ticket.getAsignadoA() == null && ticket.getCategoriaTicket() != null
+                && (ticket.getEstadoTicket() == null || !ticket.getEstadoTicket().esTerminal())) {
+            Pool pool = pools.get(ticket.getCategoriaTicket());
+            if (pool != null) {
+                ticket.setAsignadoA(propiedades.estrategia() == PropiedadesEnrutamiento.Estrategia.ROUND_ROBIN
+                    ? pool.siguiente()
+                    : pool.menosCargado());
+                reservar(ticket.getAsignadoA());
+                return;
+            }
+        }
+        if (sumar(ticket, 1)) {
+            reservar(ticket.getAsignadoA());
+        }
+    }
+
+    public Map<String, Integer> cargas() {
+        Map<String, Integer> actuales = new HashMap<>();
+        cargas.forEach((agente, carga) -> actuales.put(agente, carga.get()));
+        return actuales;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${soporte.enrutamiento.reconciliacion:PT5M}",
+        initialDelayString = "${soporte.enrutamiento.reconciliacion:PT5M}")
+    public void reconciliar() {
+        if (cargas.isEmpty()) {
+            return;
+        }
+        Map<String, Long> abiertos = new HashMap<>();
+        ticketRepository.contarAbiertosPorAgente(TERMINALES)
+            .forEach(c -> abiertos.put(c.getAgente(), c.getTotal()));
+        cargas.forEach((agente, carga) -> carga.set(abiertos.getOrDefault(agente, 0L).intValue()));
+    }
+
+    // la creacion ya se conto al enrutar; el resto de cambios se aplican una vez confirmados. Sin el estado
+    // previo no se sabe a quien restar: lo corrige la siguiente reconciliacion
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarTicket(TicketEvento evento) {
+        if (evento.tipo() != TicketEvento.Tipo.CREADO && evento.anteriorConocido()) {
+            sumar(evento.anterior(), -1);
+            sumar(evento.actual(), 1);
+        }
+    }
+
+    // true si el ticket cuenta como carga de un agente de algun pool
+    private boolean sumar(Ticket ticket, int delta) {
+        if (ticket != null && ticket.getAsignadoA() != null
+                && (ticket.getEstadoTicket() == null || !ticket.getEstadoTicket().esTerminal())) {
+            AtomicInteger carga = cargas.get(ticket.getAsignadoA());
+            if (carga != null) {
+                carga.addAndGet(delta);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // anota la reserva en la transaccion en curso; fuera de una transaccion se queda hecha
+    private void reservar(String agente) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Reservas reservas = (Reservas) TransactionSynchronizationManager.getResource(this);
+        if (reservas == null) {
+            reservas = new Reservas();
+            TransactionSynchronizationManager.bindResource(this, reservas);
+            TransactionSynchronizationManager.registerSynchronization(reservas);
+        }
+        reservas.agentes.add(agente);
+    }
+
+    // reservas hechas por la transaccion en curso (p. ej. todo un bloque de /lote)
+    private final class Reservas implements TransactionSynchronization {
+
+        private final List<String> agentes = new ArrayList<>();
+
+        @Override
+        public void afterCompletion(int estado) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EnrutadorTickets.this);
+            if (estado != STATUS_COMMITTED) {
+                agentes.forEach(agente -> cargas.get(agente).decrementAndGet());
+            }
+        }
+    }
+
+    private static final class Pool {
+
+        private final String[] agentes;
+        private final AtomicInteger[] cargas;
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        private Pool(String[] agentes, AtomicInteger[] cargas) {
+            this.agentes = agentes;
+            this.cargas = cargas;
+        }
+
+        private String siguiente() {
+            int i = Math.floorMod(cursor.getAndIncrement(), agentes.length);
+            cargas[i].incrementAndGet();
+            return agentes[i];
+        }
+
+        // el recorrido empieza en una posicion rotatoria para repartir los empates; si otro hilo cambia
+        // la carga elegida entre la lectura y el CAS se vuelve a buscar
+        private String menosCargado() {
+            while (true) {
+                int inicio = Math.floorMod(cursor.getAndIncrement(), agentes.length);
+                int elegido = inicio;
+                int minima = cargas[inicio].get();
+                for (int k = 1; k < agentes.length; k++) {
+                    int i = (inicio + k) % agentes.length;
+                    int carga = cargas[i].get();
+                    if (carga < minima) {
+                        minima = carga;
+                        elegido = i;
+                    }
+                }
+                if (cargas[elegido].compareAndSet(minima, minima + 1)) {
+                    return agentes[elegido];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Contadores en memoria de tickets por estado y categoria y de carga abierta por agente.
+// Se siembran con un GROUP BY al arrancar, se ajustan con cada TicketEvento confirmado y se
+// recalculan periodicamente contra la base de datos para corregir cualquier deriva (cambios hechos
+// fuera del servicio, eventos que llegaron mientras se reconstruia, etc.).
+@Service
+public class EstadisticasTickets {
+
+    private static final List<EstadoTicket> TERMINALES = Arrays.stream(EstadoTicket.values())
+        .filter(EstadoTicket::esTerminal).toList();
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    private final AtomicReference<Contadores> contadores = new AtomicReference<>(new Contadores(null));
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${soporte.estadisticas.reconciliacion:PT5M}",
+        initialDelayString = "${soporte.estadisticas.reconciliacion:PT5M}")
+    public void reconciliar() {
+        Contadores nuevos = new Contadores(Instant.now());
+        ticketRepository.contarPorEstadoYCategoria().forEach(c ->
+            nuevos.porEstadoYCategoria.computeIfAbsent(new Clave(c.getEstado(), c.getCategoria()),
+                k -> new LongAdder()).add(c.getTotal()));
+        ticketRepository.contarAbiertosPorAgente(TERMINALES).forEach(c ->
+            nuevos.abiertosPorAgente.computeIfAbsent(c.getAgente(), k -> new LongAdder()).add(c.getTotal()));
+        contadores.set(nuevos);
+    }
+
+    // solo cuenta cambios confirmados; fuera de una transaccion se aplica en el acto. Sin el estado previo no
+    // hay delta que aplicar: lo recoge la siguiente reconciliacion
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarTicket(TicketEvento evento) {
+        if (!evento.anteriorConocido()) {
+            return;
+        }
+        Contadores actuales = contadores.get();
+        actuales.aplicar(evento.anterior(), -1);
+        actuales.aplicar(evento.actual(), 1);
+    }
+
+    public ResumenEstadisticas resumen() {
+        Contadores actuales = contadores.get();
+        List<ResumenEstadisticas.Conteo> porEstadoYCategoria = actuales.porEstadoYCategoria.entrySet().stream()
+            .filter(e -> e.getValue().sum() > 0)
+            .map(e -> new ResumenEstadisticas.Conteo(e.getKey().estado(), e.getKey().categoria(), e.getValue().sum()))
+            .sorted(Comparator.comparing(ResumenEstadisticas.Conteo::estado, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(ResumenEstadisticas.Conteo::categoria, Comparator.nullsFirst(Comparator.naturalOrder())))
+            .toList();
+        Map<String, Long> abiertosPorAgente = new TreeMap<>();
+        actuales.abiertosPorAgente.forEach((agente, total) -> {
+            long suma = total.sum();
+            if (suma > 0) {
+                abiertosPorAgente.put(agente, suma);
+            }
+        });
+        long total = porEstadoYCategoria.stream().mapToLong(ResumenEstadisticas.Conteo::total).sum();
+        return new ResumenEstadisticas(total, porEstadoYCategoria, abiertosPorAgente, actuales.reconciliadoEn);
+    }
+
+    private record Clave(EstadoTicket estado, CategoriaTicket categoria) {
+    }
+
+    private static final class Contadores {
+
+        private final Map<Clave, LongAdder> porEstadoYCategoria = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> abiertosPorAgente = new ConcurrentHashMap<>();
+        private final Instant reconciliadoEn;
+
+        private Contadores(Instant reconciliadoEn) {
+            this.reconciliadoEn = reconciliadoEn;
+        }
+
+        private void aplicar(Ticket ticket, int delta) {
+            if (ticket == null) {
+                return;
+            }
+            porEstadoYCategoria.computeIfAbsent(new Clave(ticket.getEstadoTicket(), ticket.getCategoriaTicket()),
+                k -> new LongAdder()).add(delta);
+            if (ticket.getAsignadoA() != null
+                    && (ticket.getEstadoTicket() == null || !ticket.getEstadoTicket().esTerminal())) {
+                abiertosPorAgente.computeIfAbsent(ticket.getAsignadoA(), k -> new LongAdder()).add(delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.model.TransicionTicket;
+import com.aut.edutech.repository.TransicionTicketRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Registra cada cambio de estado en transicion_ticket dentro de la transaccion que lo produce (como el outbox);
+// las filas usan una secuencia por bloques, asi que las importaciones masivas las insertan en lotes JDBC.
+@Service
+public class HistorialEstados {
+
+    @Autowired
+    private TransicionTicketRepository transicionRepository;
+
+    @EventListener
+    public void alCambiarTicket(TicketEvento evento) {
+        Ticket anterior = evento.anterior();
+        Ticket actual = evento.actual();
+        if (actual == null || actual.getEstadoTicket() == null) {
+            return;
+        }
+        EstadoTicket origen = anterior != null ? anterior.getEstadoTicket() : null;
+        if (!evento.anteriorConocido()) {
+            // el UPDATE de la asignacion solo mueve el estado (de ABIERTO a ASIGNADO) y en ese caso pone
+            // estadoDesde al mismo instante que actualizadoEn
+            if (evento.tipo() != TicketEvento.Tipo.ASIGNADO || actual.getEstadoTicket() != EstadoTicket.ASIGNADO
+                    || actual.getEstadoDesde() == null || !actual.getEstadoDesde().equals(actual.getActualizadoEn())) {
+                return;
+            }
+            origen = EstadoTicket.ABIERTO;
+        } else if (anterior != null && origen == actual.getEstadoTicket()) {
+            return;
+        }
+        Instant fecha = actual.getEstadoDesde() != null ? actual.getEstadoDesde() : Instant.now();
+        transicionRepository.save(TransicionTicket.builder()
+            .ticketId(actual.getId())
+            .estadoOrigen(origen)
+            .estadoDestino(actual.getEstadoTicket())
+            .fecha(fecha)
+            .segundosEnOrigen(anterior != null && anterior.getEstadoDesde() != null
+                ? Duration.between(anterior.getEstadoDesde(), fecha).toSeconds() : null)
+            .build());
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransicionTicket> historial(Long ticketId) {
+        return transicionRepository.findByTicketIdOrderByIdAsc(ticketId);
+    }
+
+    // por estado: cuantos tickets entraron y salieron en [desde, hasta) y cuanto estuvieron los que salieron
+    @Transactional(readOnly = true)
+    public List<ResumenEstado> resumen(Instant desde, Instant hasta) {
+        Map<EstadoTicket, ResumenEstado> porEstado = new EnumMap<>(EstadoTicket.class);
+        for (EstadoTicket estado : EstadoTicket.values()) {
+            porEstado.put(estado, new ResumenEstado(estado, 0, 0, null, null));
+        }
+        transicionRepository.entradasPorEstado(desde, hasta).forEach(e ->
+            porEstado.put(e.getEstado(), new ResumenEstado(e.getEstado(), e.getTotal(), 0, null, null)));
+        transicionRepository.tiempoEnEstado(desde, hasta).forEach(t ->
+            porEstado.computeIfPresent(t.getEstado(), (estado, r) -> new ResumenEstado(estado, r.entradas(),
+                t.getTotal(), t.getMediaSegundos(), t.getMaximoSegundos())));
+        return List.copyOf(porEstado.values());
+    }
+
+    public record ResumenEstado(EstadoTicket estado, long entradas, long salidas,
+            Double mediaSegundosEnEstado, Long maximoSegundosEnEstado) {
+    }
+}
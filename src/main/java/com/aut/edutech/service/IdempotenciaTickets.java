@@ -0,0 +1,164 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.model.ClaveIdempotencia;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.ClaveIdempotenciaRepository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Creacion idempotente de tickets con la cabecera Idempotency-Key.
+// - En memoria hay una cache acotada y con caducidad (soporte.idempotencia.maximo / .ttl) de clave -> creacion
+//   en curso o terminada; las peticiones repetidas mientras la primera sigue en curso esperan su resultado,
+//   asi solo hay un INSERT aunque el cliente reintente varias veces a la vez.
+// - La clave se reserva en clave_idempotencia en la misma transaccion que crea el ticket; si la cache la
+//   perdio (expulsion, reinicio u otra instancia) la tabla responde, y el INSERT de la reserva espera o
+//   falla si otra instancia la esta usando.
+// - Reutilizar una clave con otro cuerpo, o repetirla mientras otra instancia la esta usando, es un conflicto
+//   (ConflictoIdempotenciaException -> 409). Si el ticket creado con la clave ya no existe se responde 410.
+@Service
+public class IdempotenciaTickets {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${soporte.idempotencia.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${soporte.idempotencia.maximo:100000}")
+    private long maximo;
+
+    private Cache<String, Creacion> creaciones;
+
+    @PostConstruct
+    void iniciar() {
+        creaciones = Caffeine.newBuilder()
+            .maximumSize(maximo)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    public CreacionIdempotente crearTicket(String clave, Ticket ticket) {
+        if (clave.isBlank() || clave.length() > ClaveIdempotencia.LONGITUD_MAXIMA) {
+            throw new SolicitudInvalidaException(
+                "Idempotency-Key debe tener entre 1 y " + ClaveIdempotencia.LONGITUD_MAXIMA + " caracteres");
+        }
+        String huella = huella(ticket);
+        Creacion propia = new Creacion(huella, new CompletableFuture<>());
+        Creacion existente = creaciones.asMap().putIfAbsent(clave, propia);
+        if (existente != null) {
+            comprobarHuella(clave, existente.huella(), huella);
+            return repetida(esperar(existente));
+        }
+        try {
+            CreacionIdempotente resultado = crearOReutilizar(clave, huella, ticket);
+            propia.ticketId().complete(resultado.ticket().getId());
+            return resultado;
+        } catch (RuntimeException e) {
+            // la clave queda libre para el siguiente reintento; quien estaba esperando recibe el mismo error
+            creaciones.asMap().remove(clave, propia);
+            propia.ticketId().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // se ejecuta con el mismo intervalo que la caducidad: ninguna fila vive mas de dos veces el ttl
+    @Scheduled(fixedDelayString = "${soporte.idempotencia.ttl:PT24H}",
+        initialDelayString = "${soporte.idempotencia.ttl:PT24H}")
+    public int purgar() {
+        Instant corte = Instant.now().minus(ttl);
+        Integer borradas = transactionTemplate.execute(estado -> claveRepository.borrarAnterioresA(corte));
+        return borradas != null ? borradas : 0;
+    }
+
+    private CreacionIdempotente crearOReutilizar(String clave, String huella, Ticket ticket) {
+        ClaveIdempotencia guardada = claveRepository.findById(clave).orElse(null);
+        if (guardada == null) {
+            try {
+                return new CreacionIdempotente(reservarYCrear(clave, huella, ticket), false);
+            } catch (DataIntegrityViolationException e) {
+                // otra instancia reservo la misma clave y ya confirmo
+                guardada = claveRepository.findById(clave).orElseThrow(() -> e);
+            }
+        }
+        comprobarHuella(clave, guardada.getHuella(), huella);
+        if (guardada.getTicketId() == null) {
+            throw new ConflictoIdempotenciaException("La creacion con Idempotency-Key " + clave + " sigue en curso");
+        }
+        return repetida(guardada.getTicketId());
+    }
+
+    private Ticket reservarYCrear(String clave, String huella, Ticket ticket) {
+        return transactionTemplate.execute(estado -> {
+            // la reserva va primero: si la clave esta en uso se falla antes de insertar el ticket
+            ClaveIdempotencia reserva = claveRepository.saveAndFlush(
+                new ClaveIdempotencia(clave, huella, Instant.now()));
+            Ticket nuevo = ticketService.crearTicket(ticket);
+            reserva.setTicketId(nuevo.getId());
+            return nuevo;
+        });
+    }
+
+    private static Long esperar(Creacion creacion) {
+        try {
+            return creacion.ticketId().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+    }
+
+    private CreacionIdempotente repetida(Long ticketId) {
+        return new CreacionIdempotente(ticketService.obtenerTicketPorId(ticketId)
+            .orElseThrow(() -> new TicketEliminadoException(
+                "El ticket " + ticketId + " creado con esta clave ya no existe")),
+            true);
+    }
+
+    private static void comprobarHuella(String clave, String esperada, String recibida) {
+        if (!esperada.equals(recibida)) {
+            throw new ConflictoIdempotenciaException("La Idempotency-Key " + clave + " ya se uso con otro cuerpo");
+        }
+    }
+
+    private String huella(Ticket ticket) {
+        try {
+            byte[] cuerpo = objectMapper.writeValueAsBytes(ticket);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(cuerpo));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            // toda JVM trae SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Creacion(String huella, CompletableFuture<Long> ticketId) {
+    }
+}
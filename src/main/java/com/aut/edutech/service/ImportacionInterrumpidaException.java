@@ -0,0 +1,17 @@
+package com.aut.edutech.service;
+
+import lombok.Getter;
+
+// La importacion por lotes confirma bloque a bloque: si un elemento falla, los bloques anteriores ya estan
+// guardados. creados dice cuantos tickets quedaron confirmados; la causa es el fallo original.
+@Getter
+public class ImportacionInterrumpidaException extends RuntimeException {
+
+    private final int creados;
+
+    public ImportacionInterrumpidaException(int creados, int elemento, RuntimeException causa) {
+        super("Importacion detenida en el elemento " + elemento + " con " + creados
+            + " tickets ya creados: " + causa.getMessage(), causa);
+        this.creados = creados;
+    }
+}
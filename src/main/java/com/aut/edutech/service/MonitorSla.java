@@ -0,0 +1,182 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.SlaEvento;
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Seguimiento del SLA de resolucion sin recorrer la tabla de tickets:
+// - al arrancar se cargan los tickets sin resolver (una sola consulta indexada por resuelto_en);
+// - despues cada TicketEvento confirmado da de alta, recalcula o quita el plazo de su ticket;
+// - las alarmas (aviso e incumplimiento) estan ordenadas por instante y el planificador solo mira la cabeza.
+// Las alarmas ya vencidas al arrancar no se vuelven a notificar; esos tickets siguen apareciendo en enRiesgo().
+@Service
+@EnableConfigurationProperties(PropiedadesSla.class)
+public class MonitorSla {
+
+    private static final List<EstadoTicket> TERMINALES = Arrays.stream(EstadoTicket.values())
+        .filter(EstadoTicket::esTerminal).toList();
+
+    @Autowired
+    private PropiedadesSla propiedades;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    private final Map<Long, Plazo> plazos = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Plazo> porVencimiento = new ConcurrentSkipListSet<>(
+        Comparator.comparing(Plazo::vence).thenComparing(Plazo::ticketId));
+    private final ConcurrentSkipListSet<Alarma> alarmas = new ConcurrentSkipListSet<>(
+        Comparator.comparing(Alarma::instante).thenComparing(Alarma::ticketId).thenComparing(Alarma::tipo));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        plazos.clear();
+        porVencimiento.clear();
+        alarmas.clear();
+        Instant ahora = Instant.now();
+        ticketRepository.buscarPendientesSla(TERMINALES).forEach(p ->
+            registrar(p.getId(), p.getCategoria(), p.getAsignadoA(), p.getCreadoEn(), ahora));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarTicket(TicketEvento evento) {
+        Ticket ticket = evento.actual();
+        if (ticket == null) {
+            return;
+        }
+        if (ticket.getCreadoEn() == null || ticket.getResueltoEn() != null
+                || (ticket.getEstadoTicket() != null && ticket.getEstadoTicket().esTerminal())) {
+            quitar(ticket.getId());
+        } else {
+            registrar(ticket.getId(), ticket.getCategoriaTicket(), ticket.getAsignadoA(), ticket.getCreadoEn(), null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${soporte.sla.intervalo:PT10S}")
+    public void comprobar() {
+        Instant ahora = Instant.now();
+        Alarma alarma;
+        while ((alarma = primeraVencida(ahora)) != null) {
+            if (alarmas.remove(alarma)) {
+                Plazo plazo = plazos.get(alarma.ticketId());
+                // el plazo pudo cambiar o desaparecer mientras la alarma esperaba
+                if (plazo != null && alarma.equals(plazo.alarma(alarma.tipo()))) {
+                    disparar(alarma.tipo(), plazo);
+                }
+            }
+        }
+    }
+
+    // tickets abiertos que vencen antes de ahora + dentroDe (incluidos los ya incumplidos), del mas urgente al menos
+    public List<RiesgoSla> enRiesgo(Duration dentroDe, int limite) {
+        Instant ahora = Instant.now();
+        Plazo hasta = new Plazo(Long.MAX_VALUE, null, null, null, ahora.plus(dentroDe), null);
+        return porVencimiento.headSet(hasta, true).stream()
+            .limit(limite)
+            .map(p -> new RiesgoSla(p.ticketId(), p.categoria(), p.asignadoA(), p.creadoEn(), p.vence(),
+                Duration.between(ahora, p.vence()).toSeconds()))
+            .toList();
+    }
+
+    // con 'ignorarAntesDe' no se programan las alarmas que ya vencieron (arranque). Al actualizar un ticket, una
+    // alarma con el mismo instante que ya no esta programada ya se disparo y no se vuelve a programar
+    private void registrar(Long ticketId, CategoriaTicket categoria, String asignadoA, Instant creadoEn,
+            Instant ignorarAntesDe) {
+        PropiedadesSla.Politica politica = propiedades.politica(categoria);
+        Instant vence = creadoEn.plus(politica.resolucion());
+        Plazo nuevo = new Plazo(ticketId, categoria, asignadoA, creadoEn, vence, vence.minus(politica.aviso()));
+        plazos.compute(ticketId, (id, anterior) -> {
+            List<Alarma> pendientes = new ArrayList<>();
+            for (SlaEvento.Tipo tipo : SlaEvento.Tipo.values()) {
+                Alarma alarma = nuevo.alarma(tipo);
+                boolean disparada = anterior != null && alarma.equals(anterior.alarma(tipo))
+                    && !alarmas.contains(alarma);
+                if (!disparada && (ignorarAntesDe == null || alarma.instante().isAfter(ignorarAntesDe))) {
+                    pendientes.add(alarma);
+                }
+            }
+            if (anterior != null) {
+                desprogramar(anterior);
+            }
+            porVencimiento.add(nuevo);
+            alarmas.addAll(pendientes);
+            return nuevo;
+        });
+    }
+
+    private void quitar(Long ticketId) {
+        plazos.computeIfPresent(ticketId, (id, anterior) -> {
+            desprogramar(anterior);
+            return null;
+        });
+    }
+
+    private void desprogramar(Plazo plazo) {
+        porVencimiento.remove(plazo);
+        for (SlaEvento.Tipo tipo : SlaEvento.Tipo.values()) {
+            alarmas.remove(plazo.alarma(tipo));
+        }
+    }
+
+    private Alarma primeraVencida(Instant ahora) {
+        Alarma primera = alarmas.isEmpty() ? null : alarmas.first();
+        return primera != null && !primera.instante().isAfter(ahora) ? primera : null;
+    }
+
+    private void disparar(SlaEvento.Tipo tipo, Plazo plazo) {
+        Counter.builder("tickets.sla")
+            .description("Avisos e incumplimientos de SLA detectados")
+            .tag("tipo", tipo.name().toLowerCase(Locale.ROOT))
+            .tag("categoria", plazo.categoria() != null ? plazo.categoria().name() : "ninguno")
+            .register(registro)
+            .increment();
+        eventos.publishEvent(new SlaEvento(tipo, plazo.ticketId(), plazo.categoria(), plazo.asignadoA(), plazo.vence()));
+    }
+
+    private record Plazo(Long ticketId, CategoriaTicket categoria, String asignadoA, Instant creadoEn,
+            Instant vence, Instant avisoEn) {
+
+        Alarma alarma(SlaEvento.Tipo tipo) {
+            return new Alarma(tipo == SlaEvento.Tipo.AVISO ? avisoEn : vence, ticketId, tipo);
+        }
+    }
+
+    private record Alarma(Instant instante, Long ticketId, SlaEvento.Tipo tipo) {
+    }
+
+    // segundosRestantes es negativo cuando el SLA ya se incumplio
+    public record RiesgoSla(Long ticketId, CategoriaTicket categoria, String asignadoA, Instant creadoEn,
+            Instant vence, long segundosRestantes) {
+    }
+}
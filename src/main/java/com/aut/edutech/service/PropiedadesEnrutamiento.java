@@ -0,0 +1,25 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.model.CategoriaTicket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+import java.util.Map;
+
+// soporte.enrutamiento.pools.<CATEGORIA>=agente1,agente2; una categoria sin pool no se enruta
+@ConfigurationProperties(prefix = "soporte.enrutamiento")
+public record PropiedadesEnrutamiento(
+        @DefaultValue("MENOS_CARGADO") Estrategia estrategia,
+        Map<CategoriaTicket, List<String>> pools) {
+
+    public enum Estrategia {
+        MENOS_CARGADO,
+        ROUND_ROBIN
+    }
+
+    public PropiedadesEnrutamiento {
+        pools = pools != null ? Map.copyOf(pools) : Map.of();
+    }
+}
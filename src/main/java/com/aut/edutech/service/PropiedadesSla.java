@@ -0,0 +1,34 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.model.CategoriaTicket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+// resolucion: plazo desde la creacion hasta resolver; aviso: antelacion con la que se avisa antes de vencer.
+// soporte.sla.politicas.<CATEGORIA>.resolucion/.aviso sustituyen a los valores generales para esa categoria.
+@ConfigurationProperties(prefix = "soporte.sla")
+public record PropiedadesSla(
+        @DefaultValue("PT24H") Duration resolucion,
+        @DefaultValue("PT4H") Duration aviso,
+        Map<CategoriaTicket, Politica> politicas) {
+
+    public record Politica(Duration resolucion, Duration aviso) {
+    }
+
+    public PropiedadesSla {
+        politicas = politicas != null ? Map.copyOf(politicas) : Map.of();
+    }
+
+    public Politica politica(CategoriaTicket categoria) {
+        Politica propia = categoria != null ? politicas.get(categoria) : null;
+        if (propia == null) {
+            return new Politica(resolucion, aviso);
+        }
+        return new Politica(propia.resolucion() != null ? propia.resolucion() : resolucion,
+            propia.aviso() != null ? propia.aviso() : aviso);
+    }
+}
@@ -0,0 +1,7 @@
+package com.aut.edutech.service;
+
+import java.util.List;
+
+// total puede ser una cota inferior cuando hay muchas coincidencias
+public record ResultadoBusqueda(List<TicketEncontrado> encontrados, long total) {
+}
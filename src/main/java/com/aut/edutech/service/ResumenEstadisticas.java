@@ -0,0 +1,19 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// reconciliadoEn es null mientras los contadores aun no se han sembrado
+public record ResumenEstadisticas(
+        long total,
+        List<Conteo> porEstadoYCategoria,
+        Map<String, Long> abiertosPorAgente,
+        Instant reconciliadoEn) {
+
+    public record Conteo(EstadoTicket estado, CategoriaTicket categoria, long total) {
+    }
+}
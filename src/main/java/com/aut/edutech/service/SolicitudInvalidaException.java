@@ -0,0 +1,18 @@
+package com.aut.edutech.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Datos de entrada que el cliente debe corregir; los controladores la responden con 400.
+// Un IllegalArgumentException lanzado por un fallo interno sigue siendo un 500.
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class SolicitudInvalidaException extends RuntimeException {
+
+    public SolicitudInvalidaException(String mensaje) {
+        super(mensaje);
+    }
+
+    public SolicitudInvalidaException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
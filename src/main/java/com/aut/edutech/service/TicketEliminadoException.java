@@ -0,0 +1,13 @@
+package com.aut.edutech.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// El ticket que se creo con una Idempotency-Key ya no existe (ni en activos ni en archivados); se responde 410.
+@ResponseStatus(HttpStatus.GONE)
+public class TicketEliminadoException extends RuntimeException {
+
+    public TicketEliminadoException(String mensaje) {
+        super(mensaje);
+    }
+}
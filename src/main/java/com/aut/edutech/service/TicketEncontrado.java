@@ -0,0 +1,10 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.model.Ticket;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.util.Map;
+
+// fragmentos: campo -> texto con los terminos buscados entre <b></b>
+public record TicketEncontrado(@JsonUnwrapped Ticket ticket, float relevancia, Map<String, String> fragmentos) {
+}
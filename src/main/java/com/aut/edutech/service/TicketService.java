@@ -1,14 +1,47 @@
 package com.aut.edutech.service;
 
+import com.aut.edutech.config.CacheConfig;
+import com.aut.edutech.evento.TicketEvento;
 import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
 import com.aut.edutech.model.Ticket;
+import com.aut.edutech.model.TicketArchivado;
+import com.aut.edutech.repository.TicketArchivadoRepository;
 import com.aut.edutech.repository.TicketRepository;
+import com.aut.edutech.repository.TicketRepositoryProyecciones;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.aut.edutech.repository.TicketSpecifications.*;
 
 @Service
 public class TicketService {
@@ -16,44 +49,349 @@ public class TicketService {
     @Autowired
     private TicketRepository ticketRepository;
 
+    @Autowired
+    private TicketArchivadoRepository archivadoRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private EnrutadorTickets enrutador;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private DetectorDuplicados detectorDuplicados;
+
+    @Value("${soporte.tickets.lote.tamano:500}")
+    private int tamanoLote;
+
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.TICKETS, key = "#result.id")
     public Ticket crearTicket(Ticket ticket) {
-        return ticketRepository.save(ticket);
+        sellarCreacion(ticket);
+        detectorDuplicados.enlazar(ticket);
+        enrutador.enrutar(ticket);
+        marcarAsignado(ticket);
+        Ticket nuevo = ticketRepository.save(ticket);
+        detectorDuplicados.indexar(nuevo);
+        publicar(TicketEvento.Tipo.CREADO, null, nuevo);
+        return copia(nuevo);
+    }
+
+    // cada bloque se confirma en su propia transaccion y se limpia el contexto de persistencia,
+    // asi la memoria no crece con el tamano de la importacion. Cada elemento se valida antes de entrar en su
+    // bloque; ante el primer fallo se descarta el bloque en curso y se informa de cuantos quedaron creados.
+    public int crearTickets(Iterator<Ticket> tickets) {
+        int creados = 0;
+        int leidos = 0;
+        List<Ticket> lote = new ArrayList<>();
+        try {
+            while (tickets.hasNext()) {
+                Ticket ticket = tickets.next();
+                leidos++;
+                validarObligatorios(ticket);
+                ticket.setId(null);
+                ticket.setVersion(null);
+                ticket.setTicketPadreId(null);
+                sellarCreacion(ticket);
+                lote.add(ticket);
+                if (lote.size() >= tamanoLote) {
+                    creados += guardarLote(lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                creados += guardarLote(lote);
+            }
+        } catch (RuntimeException e) {
+            throw new ImportacionInterrumpidaException(creados, leidos, e);
+        }
+        return creados;
+    }
+
+    // cada ticket se indexa nada mas guardarse (la secuencia ya le da id; los INSERT siguen yendo en lote al
+    // hacer flush) para que los siguientes del mismo bloque puedan enlazarse a el
+    private int guardarLote(List<Ticket> lote) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            for (Ticket ticket : lote) {
+                detectorDuplicados.enlazar(ticket);
+                enrutador.enrutar(ticket);
+                marcarAsignado(ticket);
+                Ticket nuevo = ticketRepository.save(ticket);
+                detectorDuplicados.indexar(nuevo);
+                publicar(TicketEvento.Tipo.CREADO, null, nuevo);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        return lote.size();
     }
 
+    @Transactional(readOnly = true)
     public List<Ticket> obtenerTodosLosTickets() {
         return ticketRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public List<Ticket> obtenerTicketsDesde(Long despuesDe, int limite) {
+        long cursor = despuesDe != null ? despuesDe : 0L;
+        return ticketRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(limite));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Ticket> buscarTickets(EstadoTicket estado, CategoriaTicket categoria,
+            String asignado, String creador, Long despuesDe, int limite) {
+        Specification<Ticket> filtro = Specification.where(conEstado(estado))
+            .and(conCategoria(categoria))
+            .and(asignadoA(asignado))
+            .and(creadoPor(creador))
+            .and(idMayorQue(despuesDe));
+        return ticketRepository.findBy(filtro, consulta -> consulta
+            .sortBy(Sort.by("id"))
+            .limit(limite)
+            .all());
+    }
+
+    // mismos filtros que buscarTickets, pero solo con los campos pedidos
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> buscarCamposTickets(List<String> campos, EstadoTicket estado,
+            CategoriaTicket categoria, String asignado, String creador, Long despuesDe, int limite) {
+        for (String campo : campos) {
+            if (!TicketRepositoryProyecciones.CAMPOS.contains(campo)) {
+                throw new SolicitudInvalidaException(
+                    "Campo desconocido: " + campo + "; validos: " + TicketRepositoryProyecciones.CAMPOS);
+            }
+        }
+        Specification<Ticket> filtro = Specification.where(conEstado(estado))
+            .and(conCategoria(categoria))
+            .and(asignadoA(asignado))
+            .and(creadoPor(creador))
+            .and(idMayorQue(despuesDe));
+        return ticketRepository.buscarCampos(filtro, campos, limite);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportarTickets(Consumer<Ticket> consumidor) {
+        recorrer(ticketRepository.streamTodosOrdenadosPorId(), consumidor);
+    }
+
+    // solo los tickets con actualizadoEn desde el instante dado (no incluye los archivados)
+    @Transactional(readOnly = true)
+    public void exportarTicketsActualizadosDesde(Instant desde, Consumer<Ticket> consumidor) {
+        recorrer(ticketRepository.streamActualizadosDesde(desde), consumidor);
+    }
+
+    private void recorrer(Stream<Ticket> stream, Consumer<Ticket> consumidor) {
+        try (Stream<Ticket> tickets = stream) {
+            tickets.forEach(ticket -> {
+                consumidor.accept(ticket);
+                // se libera del contexto de persistencia para mantener la memoria acotada
+                entityManager.detach(ticket);
+            });
+        }
+    }
+
+    // no se cachea la ausencia: un id creado despues (p. ej. por lote) debe verse de inmediato.
+    // Tampoco lo leido de una replica: podria estar atrasada y pisar en la cache la version que acaba de
+    // escribir otra peticion; la cache solo la rellenan las lecturas del primario y las escrituras.
+    // Si no esta en la tabla caliente se busca en el archivo; los archivados son de solo lectura.
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.TICKETS, key = "#id",
+        unless = "#result == null || T(com.aut.edutech.replica.ContextoLectura).enReplicas()")
     public Optional<Ticket> obtenerTicketPorId(Long id) {
-        return ticketRepository.findById(id);
+        return ticketRepository.findById(id).map(TicketService::copia)
+            .or(() -> archivadoRepository.findById(id).map(TicketArchivado::aTicket));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Ticket> obtenerDuplicados(Long id) {
+        return ticketRepository.findByTicketPadreIdOrderByIdAsc(id);
     }
 
-    public Ticket actualizarTicket(Long id, Ticket ticketActualizado) {
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.TICKETS, key = "#id", unless = "#result == null")
+    public Ticket actualizarTicket(Long id, Ticket ticketActualizado, Long versionEsperada) {
         return ticketRepository.findById(id).map(ticket -> {
+            comprobarVersion(ticket, versionEsperada);
+            Ticket anterior = ticket.toBuilder().build();
+            cambiarEstado(ticket, ticketActualizado.getEstadoTicket());
             ticket.setTitulo(ticketActualizado.getTitulo());
             ticket.setDescripcionTicket(ticketActualizado.getDescripcionTicket());
             ticket.setEstadoTicket(ticketActualizado.getEstadoTicket());
             ticket.setCategoriaTicket(ticketActualizado.getCategoriaTicket());
             ticket.setAsignadoA(ticketActualizado.getAsignadoA());
             ticket.setCreadoPor(ticketActualizado.getCreadoPor());
-            return ticketRepository.save(ticket);}).orElseGet(() -> {
-                ticketActualizado.setId(id);
-                return ticketRepository.save(ticketActualizado);});
+            ticket.setActualizadoEn(Instant.now());
+            Ticket guardado = ticketRepository.save(ticket);
+            publicar(TicketEvento.Tipo.ACTUALIZADO, anterior, guardado);
+            return copia(guardado);}).orElseGet(() -> {
+                comprobarExistencia(id, versionEsperada);
+                return null;});
     }
 
-    public Ticket asignarTicket(Long id, String usuarioId) {
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.TICKETS, key = "#id", unless = "#result == null")
+    public Ticket asignarTicket(Long id, String usuarioId, Long versionEsperada) {
+        if (ticketRepository.actualizarAsignadoA(id, usuarioId, versionEsperada, Instant.now()) == 0) {
+            comprobarExistencia(id, versionEsperada);
+            return null;
+        }
+        return leerCambiado(id, TicketEvento.Tipo.ASIGNADO);
+    }
+
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.TICKETS, key = "#id", unless = "#result == null")
+    public Ticket categorizarTicket(Long id, CategoriaTicket categoria, Long versionEsperada) {
+        if (ticketRepository.actualizarCategoria(id, categoria, versionEsperada, Instant.now()) == 0) {
+            comprobarExistencia(id, versionEsperada);
+            return null;
+        }
+        return leerCambiado(id, TicketEvento.Tipo.CATEGORIZADO);
+    }
+
+    // unica via para cambiar solo el estado; el destino debe estar permitido desde el estado actual
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.TICKETS, key = "#id", unless = "#result == null")
+    public Ticket transicionarTicket(Long id, EstadoTicket estado, Long versionEsperada) {
         return ticketRepository.findById(id).map(ticket -> {
-            ticket.setAsignadoA(usuarioId);
-            return ticketRepository.save(ticket);}).orElse(null);
+            comprobarVersion(ticket, versionEsperada);
+            if (ticket.getEstadoTicket() == estado) {
+                return copia(ticket);
+            }
+            Ticket anterior = ticket.toBuilder().build();
+            cambiarEstado(ticket, estado);
+            ticket.setActualizadoEn(Instant.now());
+            Ticket guardado = ticketRepository.save(ticket);
+            publicar(TicketEvento.Tipo.TRANSICION, anterior, guardado);
+            return copia(guardado);}).orElse(null);
     }
 
-    public Ticket categorizarTicket(Long id, CategoriaTicket categoria) {
+    // JSON Merge Patch (RFC 7386): solo cambian los campos presentes; un null borra el valor
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.TICKETS, key = "#id", unless = "#result == null")
+    public Ticket parchearTicket(Long id, JsonNode parche, Long versionEsperada) {
+        if (!parche.isObject()) {
+            throw new SolicitudInvalidaException("El parche debe ser un objeto JSON");
+        }
+        ObjectNode cambios = parche.deepCopy();
+        cambios.remove("id");
         return ticketRepository.findById(id).map(ticket -> {
-            ticket.setCategoriaTicket(categoria);
-            return ticketRepository.save(ticket);}).orElse(null);
+            comprobarVersion(ticket, versionEsperada);
+            Ticket anterior = ticket.toBuilder().build();
+            EstadoTicket estadoAnterior = ticket.getEstadoTicket();
+            try {
+                objectMapper.readerForUpdating(ticket).readValue(cambios);
+            } catch (JsonProcessingException e) {
+                throw new SolicitudInvalidaException("Parche invalido: " + e.getOriginalMessage(), e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            validarObligatorios(ticket);
+            EstadoTicket estadoNuevo = ticket.getEstadoTicket();
+            ticket.setEstadoTicket(estadoAnterior);
+            cambiarEstado(ticket, estadoNuevo);
+            ticket.setActualizadoEn(Instant.now());
+            Ticket guardado = ticketRepository.save(ticket);
+            publicar(TicketEvento.Tipo.ACTUALIZADO, anterior, guardado);
+            return copia(guardado);}).orElseGet(() -> {
+                comprobarExistencia(id, versionEsperada);
+                return null;});
     }
 
-    
+    // las mismas restricciones que las columnas, para responder 400 en vez de fallar en la base de datos
+    private static void validarObligatorios(Ticket ticket) {
+        if (ticket.getTitulo() == null || ticket.getDescripcionTicket() == null
+                || ticket.getCreadoPor() == null) {
+            throw new SolicitudInvalidaException("titulo, descripcionTicket y creadoPor no pueden ser nulos");
+        }
+        if (ticket.getTitulo().length() > Ticket.LONGITUD_TITULO
+                || ticket.getDescripcionTicket().length() > Ticket.LONGITUD_DESCRIPCION) {
+            throw new SolicitudInvalidaException("titulo admite hasta " + Ticket.LONGITUD_TITULO
+                + " caracteres y descripcionTicket hasta " + Ticket.LONGITUD_DESCRIPCION);
+        }
+    }
 
+    private static void comprobarVersion(Ticket ticket, Long versionEsperada) {
+        if (versionEsperada != null && !versionEsperada.equals(ticket.getVersion())) {
+            throw new OptimisticLockingFailureException(
+                "El ticket " + ticket.getId() + " esta en la version " + ticket.getVersion()
+                    + ", no en la " + versionEsperada);
+        }
+    }
 
+    private static void cambiarEstado(Ticket ticket, EstadoTicket destino) {
+        if (destino == null) {
+            throw new SolicitudInvalidaException("estadoTicket no puede ser nulo");
+        }
+        EstadoTicket origen = ticket.getEstadoTicket();
+        if (origen == destino) {
+            return;
+        }
+        if (!EstadoTicket.transicionValida(origen, destino)) {
+            throw new TransicionInvalidaException(
+                "El ticket " + ticket.getId() + " no puede pasar de " + origen + " a " + destino);
+        }
+        Instant ahora = Instant.now();
+        ticket.setEstadoTicket(destino);
+        ticket.setEstadoDesde(ahora);
+        ticket.setResueltoEn(destino != null && destino.esTerminal() ? ahora : null);
+    }
+
+    // un ticket nuevo que sale con agente (propio, heredado del duplicado o enrutado) ya no esta ABIERTO
+    private static void marcarAsignado(Ticket ticket) {
+        if (ticket.getAsignadoA() != null && ticket.getEstadoTicket() == EstadoTicket.ABIERTO) {
+            ticket.setEstadoTicket(EstadoTicket.ASIGNADO);
+        }
+    }
+
+    private static void sellarCreacion(Ticket ticket) {
+        Instant ahora = Instant.now();
+        ticket.setCreadoEn(ahora);
+        ticket.setActualizadoEn(ahora);
+        ticket.setEstadoDesde(ahora);
+        ticket.setResueltoEn(ticket.getEstadoTicket() != null && ticket.getEstadoTicket().esTerminal() ? ahora : null);
+    }
+
+    // asignar y categorizar son un unico UPDATE condicionado, sin leer ni bloquear la fila antes: sin If-Match
+    // dos cambios simultaneos se aplican uno tras otro y con If-Match decide la version. La fila se lee despues,
+    // ya escrita por esta transaccion. El estado previo no se lee de la base de datos: si la cache guarda justo
+    // la version anterior, es ese; si no, el evento sale sin 'anterior' y los contadores que dependen de el se
+    // corrigen en su reconciliacion periodica
+    private Ticket leerCambiado(Long id, TicketEvento.Tipo tipo) {
+        return ticketRepository.findById(id).map(ticket -> {
+            Ticket cacheado = cacheManager.getCache(CacheConfig.TICKETS).get(id, Ticket.class);
+            Ticket anterior = cacheado != null && ticket.getVersion() != null
+                && Long.valueOf(ticket.getVersion() - 1).equals(cacheado.getVersion()) ? copia(cacheado) : null;
+            publicar(tipo, anterior, ticket);
+            return copia(ticket);}).orElse(null);
+    }
+
+    private void publicar(TicketEvento.Tipo tipo, Ticket anterior, Ticket actual) {
+        eventos.publishEvent(new TicketEvento(tipo, anterior, copia(actual)));
+    }
+
+    // lo que se devuelve (y se guarda en la cache) es una copia: la entidad gestionada no sale de su contexto de
+    // persistencia y quien modifique lo recibido no altera la entrada compartida ni lo que Hibernate volcaria
+    private static Ticket copia(Ticket ticket) {
+        return ticket.toBuilder().build();
+    }
+
+    // distingue "no existe" (null, 404) de "existe pero en otra version" cuando se pidio una version concreta
+    private void comprobarExistencia(Long id, Long versionEsperada) {
+        if (versionEsperada != null && ticketRepository.existsById(id)) {
+            throw new OptimisticLockingFailureException(
+                "El ticket " + id + " no esta en la version " + versionEsperada);
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package com.aut.edutech.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// El cambio de estado pedido no esta permitido desde el estado actual (EstadoTicket.puedePasarA); se responde 409.
+@ResponseStatus(HttpStatus.CONFLICT)
+public class TransicionInvalidaException extends RuntimeException {
+
+    public TransicionInvalidaException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,14 @@
+-- esquema de db_tickets anterior a Flyway, tal como lo generaba ddl-auto=update con MySQL8Dialect a partir de la
+-- entidad Ticket original (id IDENTITY). Las bases ya existentes se marcan con linea base en esta version y no
+-- la ejecutan; todo lo posterior llega con V2 en adelante a las bases existentes y a las nuevas por igual
+
+create table ticket (
+    id bigint not null auto_increment,
+    asignadoa varchar(255),
+    categoria_ticket enum ('ACCESO','HARDWARE','OTRO','RED','SOFTWARE'),
+    creado_por varchar(255) not null,
+    descripcion_ticket varchar(1000) not null,
+    estado_ticket enum ('ABIERTO','ASIGNADO','CANCELADO','CERRADO','FINALIZADO','PROGRESO'),
+    titulo varchar(50) not null,
+    primary key (id)
+) engine=InnoDB;
@@ -0,0 +1,23 @@
+-- columnas que la serie anade a ticket: version para el bloqueo optimista, marcas de tiempo, enlace a duplicados.
+-- Los identificadores pasan a secuencias por bloques (V4), asi que id deja de ser auto_increment
+
+alter table ticket modify id bigint not null;
+
+alter table ticket add column version bigint not null default 0;
+alter table ticket add column ticket_padre_id bigint;
+alter table ticket add column estado_desde datetime(6);
+alter table ticket add column creado_en datetime(6);
+alter table ticket add column actualizado_en datetime(6);
+alter table ticket add column resuelto_en datetime(6);
+
+-- los tickets existentes no guardaban fechas: cuentan desde la migracion (ventanas de SLA, duplicados y archivo)
+update ticket set estado_desde = current_timestamp(6), creado_en = current_timestamp(6),
+    actualizado_en = current_timestamp(6);
+update ticket set resuelto_en = current_timestamp(6)
+    where estado_ticket in ('CERRADO', 'FINALIZADO', 'CANCELADO');
+
+create index idx_ticket_estado_categoria_asignado on ticket (estado_ticket, categoria_ticket, asignadoa);
+create index idx_ticket_asignado_estado on ticket (asignadoa, estado_ticket);
+create index idx_ticket_creado_por_estado on ticket (creado_por, estado_ticket);
+create index idx_ticket_resuelto_en on ticket (resuelto_en);
+create index idx_ticket_padre on ticket (ticket_padre_id);
@@ -0,0 +1,59 @@
+-- archivo, historial de estados, outbox de eventos y claves de idempotencia
+
+create table ticket_archivado (
+    id bigint not null,
+    titulo varchar(50) not null,
+    descripcion_ticket varchar(1000) not null,
+    estado_ticket enum ('ABIERTO','ASIGNADO','CANCELADO','CERRADO','FINALIZADO','PROGRESO'),
+    categoria_ticket enum ('ACCESO','HARDWARE','OTRO','RED','SOFTWARE'),
+    asignadoa varchar(255),
+    creado_por varchar(255) not null,
+    ticket_padre_id bigint,
+    estado_desde datetime(6),
+    creado_en datetime(6),
+    actualizado_en datetime(6),
+    resuelto_en datetime(6),
+    version bigint,
+    archivado_en datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table transicion_ticket (
+    id bigint not null,
+    ticket_id bigint not null,
+    estado_origen enum ('ABIERTO','ASIGNADO','CANCELADO','CERRADO','FINALIZADO','PROGRESO'),
+    estado_destino enum ('ABIERTO','ASIGNADO','CANCELADO','CERRADO','FINALIZADO','PROGRESO'),
+    fecha datetime(6) not null,
+    segundos_en_origen bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_transicion_ticket on transicion_ticket (ticket_id);
+create index idx_transicion_origen_fecha on transicion_ticket (estado_origen, fecha, segundos_en_origen);
+create index idx_transicion_destino_fecha on transicion_ticket (estado_destino, fecha);
+
+-- el payload JSON supera facilmente los 255 bytes del tinytext que ddl-auto=update generaba para @Lob String.
+-- El relevo reclama cada lote en una transaccion corta y lo publica fuera de ella; un reclamo caducado
+-- (relevo caido a mitad de lote) vuelve a estar disponible
+create table evento_outbox (
+    id bigint not null,
+    ticket_id bigint not null,
+    tipo enum ('ACTUALIZADO','ARCHIVADO','ASIGNADO','CATEGORIZADO','CREADO','TRANSICION') not null,
+    payload mediumtext not null,
+    creado_en datetime(6) not null,
+    reclamo varchar(36),
+    reclamado_en datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_evento_outbox_reclamo on evento_outbox (reclamo);
+
+create table clave_idempotencia (
+    clave varchar(255) not null,
+    huella varchar(64) not null,
+    ticket_id bigint,
+    creada_en datetime(6) not null,
+    primary key (clave)
+) engine=InnoDB;
+
+create index idx_clave_idempotencia_creada_en on clave_idempotencia (creada_en);
@@ -0,0 +1,22 @@
+-- MySQL no tiene secuencias: cada una es una tabla de una fila (incremento 50, ver allocationSize). En una base
+-- que ya tenia tickets la secuencia debe arrancar por encima del mayor id existente o el primer INSERT choca con
+-- la clave primaria. next_val es el limite superior del primer bloque (optimizador pooled): max(id) + 50
+-- reparte max(id)+1 .. max(id)+50
+
+create table ticket_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into ticket_seq (next_val) select coalesce(max(id), 0) + 50 from ticket;
+
+create table transicion_ticket_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into transicion_ticket_seq (next_val) values (50);
+
+create table evento_outbox_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into evento_outbox_seq (next_val) values (50);
@@ -0,0 +1,4 @@
+-- BusquedaTickets reabre el indice de texto en disco y solo recoge lo cambiado o archivado desde su ultimo commit
+
+create index idx_ticket_actualizado_en on ticket (actualizado_en);
+create index idx_ticket_archivado_archivado_en on ticket_archivado (archivado_en);
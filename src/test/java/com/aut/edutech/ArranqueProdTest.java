@@ -0,0 +1,61 @@
+package com.aut.edutech;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.service.TicketService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// perfil prod sobre H2: esquema de Flyway sin validacion de Hibernate, inicializacion perezosa y
+// bootstrap diferido de JPA. El tiempo de arranque se mide con ArranqueBenchmark
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:arranque_prod;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+    "spring.flyway.enabled=true",
+    "soporte.outbox.publicador=memoria"
+})
+@ActiveProfiles("prod")
+class ArranqueProdTest {
+
+    @Autowired
+    private ConfigurableApplicationContext contexto;
+
+    @Test
+    void testSoloLasTareasProgramadasSeCreanAlArrancar() {
+        assertThat(contexto.getBeanFactory().containsSingleton("monitorSla")).isTrue();
+        assertThat(contexto.getBeanFactory().containsSingleton("relevoOutbox")).isTrue();
+        assertThat(contexto.getBeanFactory().containsSingleton("ticketController")).isFalse();
+    }
+
+    @Test
+    void testSinPublicadorDelOutboxNoArranca() {
+        assertThatThrownBy(() -> new SpringApplicationBuilder(SoporteApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("prod")
+                .run("--spring.datasource.url=jdbc:h2:mem:arranque_prod_sin_publicador;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect")
+                .close())
+            .hasStackTraceContaining("SOPORTE_OUTBOX_PUBLICADOR");
+    }
+
+    @Test
+    void testEsquemaDeMigraciones() {
+        Ticket creado = contexto.getBean(TicketService.class).crearTicket(Ticket.builder()
+            .titulo("Impresora")
+            .descripcionTicket("No imprime")
+            .categoriaTicket(CategoriaTicket.HARDWARE)
+            .creadoPor("Admin")
+            .build());
+
+        assertThat(creado.getId()).isNotNull();
+        assertThat(contexto.getBeanFactory().containsSingleton("ticketController")).isFalse();
+    }
+}
@@ -0,0 +1,71 @@
+package com.aut.edutech.assembler;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.Ticket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TicketModelAssemblerTest {
+
+    private TicketModelAssembler assembler;
+    private Ticket ticket;
+
+    @BeforeEach
+    void setUp() {
+        assembler = new TicketModelAssembler();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        ticket = new Ticket();
+        ticket.setId(1L);
+        ticket.setTitulo("Ticket 1");
+        ticket.setCategoriaTicket(CategoriaTicket.RED);
+        ticket.setAsignadoA("Usuario 1");
+    }
+
+    @AfterEach
+    void limpiar() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testToModelGeneraLosCincoEnlaces() {
+        EntityModel<Ticket> model = assembler.toModel(ticket);
+
+        assertThat(model.getRequiredLink(IanaLinkRelations.SELF).getHref())
+            .isEqualTo("http://localhost/api/tickets/1");
+        assertThat(model.getRequiredLink("tickets").getHref()).isEqualTo("http://localhost/api/tickets");
+        assertThat(model.getRequiredLink("asignar").getHref())
+            .isEqualTo("http://localhost/api/tickets/1/asignar?usuarioId=Usuario%201");
+        assertThat(model.getRequiredLink("categorizar").getHref())
+            .isEqualTo("http://localhost/api/tickets/1/categorizar?categoria=RED");
+        assertThat(model.getRequiredLink("actualizar").getHref()).isEqualTo("http://localhost/api/tickets/1");
+    }
+
+    @Test
+    void testListadoSinAccionesSoloIncluyeNavegacion() {
+        ReflectionTestUtils.setField(assembler, "accionesEnListados", false);
+
+        EntityModel<Ticket> model = assembler.toModelEnListado(ticket);
+
+        assertThat(model.getLinks()).hasSize(2);
+        assertThat(model.getLink("asignar")).isEmpty();
+    }
+
+    @Test
+    void testSinPeticionActivaUsaEnlacesRelativos() {
+        RequestContextHolder.resetRequestAttributes();
+
+        EntityModel<Ticket> model = assembler.toModel(ticket);
+
+        assertThat(model.getRequiredLink(IanaLinkRelations.SELF).getHref()).isEqualTo("/api/tickets/1");
+    }
+}
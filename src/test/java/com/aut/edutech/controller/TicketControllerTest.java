@@ -1,26 +1,60 @@
 package com.aut.edutech.controller;
 
 import com.aut.edutech.assembler.TicketModelAssembler;
+import com.aut.edutech.assembler.TicketParcial;
 import com.aut.edutech.model.CategoriaTicket;
 import com.aut.edutech.model.EstadoTicket;
 import com.aut.edutech.model.Ticket;
+import com.aut.edutech.replica.AfinidadPrimario;
+import com.aut.edutech.replica.ContextoLectura;
+import com.aut.edutech.replica.PropiedadesReplicas;
+import com.aut.edutech.service.BusquedaTickets;
+import com.aut.edutech.service.ConflictoIdempotenciaException;
+import com.aut.edutech.service.CreacionIdempotente;
+import com.aut.edutech.service.HistorialEstados;
+import com.aut.edutech.service.IdempotenciaTickets;
+import com.aut.edutech.service.ImportacionInterrumpidaException;
+import com.aut.edutech.service.ResultadoBusqueda;
+import com.aut.edutech.service.SolicitudInvalidaException;
+import com.aut.edutech.service.TicketEliminadoException;
+import com.aut.edutech.service.TicketEncontrado;
 import com.aut.edutech.service.TicketService;
+import com.aut.edutech.service.TransicionInvalidaException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.Link;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -36,6 +70,18 @@ public class TicketControllerTest {
     @Mock
     private TicketModelAssembler assembler;
 
+    @Mock
+    private BusquedaTickets busquedaTickets;
+
+    @Mock
+    private HistorialEstados historialEstados;
+
+    @Mock
+    private IdempotenciaTickets idempotenciaTickets;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private TicketController ticketController;
 
@@ -52,6 +98,8 @@ public class TicketControllerTest {
             model.add(Link.of("/api/tickets/" + t.getId()).withSelfRel());
             return model;
         });
+        when(assembler.toModelEnListado(any(Ticket.class)))
+            .thenAnswer(invocation -> assembler.toModel(invocation.<Ticket>getArgument(0)));
 
         mockMvc = MockMvcBuilders.standaloneSetup(ticketController).build();
 
@@ -67,7 +115,7 @@ public class TicketControllerTest {
 
     @Test
     void testCategorizarTicketNoExistente() throws Exception {
-        when(ticketService.categorizarTicket(eq(999L), eq(CategoriaTicket.SOFTWARE))).thenReturn(null);
+        when(ticketService.categorizarTicket(eq(999L), eq(CategoriaTicket.SOFTWARE), isNull())).thenReturn(null);
 
         mockMvc.perform(put("/api/tickets/999/categorizar?categoria=SOFTWARE"))
                .andExpect(status().isNotFound());
@@ -96,13 +144,249 @@ public class TicketControllerTest {
                .andExpect(jsonPath("$.titulo").value("Ticket 1"));
     }
 
+    @Test
+    void testCrearTicketConIdempotencyKeyRepetida() throws Exception {
+        ticket.setVersion(0L);
+        when(idempotenciaTickets.crearTicket(eq("clave-1"), any(Ticket.class)))
+            .thenReturn(new CreacionIdempotente(ticket, true));
+
+        mockMvc.perform(post("/api/tickets")
+               .header("Idempotency-Key", "clave-1")
+               .contentType("application/json")
+               .content("{\"titulo\":\"Ticket 1\",\"creadoPor\":\"Admin\"}"))
+               .andExpect(status().isCreated())
+               .andExpect(header().string("Location", containsString("/api/tickets/1")))
+               .andExpect(header().string("ETag", "\"0\""))
+               .andExpect(header().string("Idempotent-Replayed", "true"))
+               .andExpect(jsonPath("$.titulo").value("Ticket 1"));
+
+        verify(ticketService, never()).crearTicket(any(Ticket.class));
+    }
+
+    @Test
+    void testCrearTicketConIdempotencyKeyReutilizadaConOtroCuerpo() throws Exception {
+        when(idempotenciaTickets.crearTicket(eq("clave-1"), any(Ticket.class)))
+            .thenThrow(new ConflictoIdempotenciaException("La Idempotency-Key clave-1 ya se uso con otro cuerpo"));
+
+        mockMvc.perform(post("/api/tickets")
+               .header("Idempotency-Key", "clave-1")
+               .contentType("application/json")
+               .content("{\"titulo\":\"Otro\",\"creadoPor\":\"Admin\"}"))
+               .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testCrearTicketConIdempotencyKeyDeUnTicketEliminado() throws Exception {
+        when(idempotenciaTickets.crearTicket(eq("clave-1"), any(Ticket.class)))
+            .thenThrow(new TicketEliminadoException("El ticket 1 creado con esta clave ya no existe"));
+
+        mockMvc.perform(post("/api/tickets")
+               .header("Idempotency-Key", "clave-1")
+               .contentType("application/json")
+               .content("{\"titulo\":\"Ticket 1\",\"creadoPor\":\"Admin\"}"))
+               .andExpect(status().isGone());
+    }
+
+    @Test
+    void testObtenerDuplicados() throws Exception {
+        Ticket duplicado = ticket.toBuilder().id(2L).ticketPadreId(1L).build();
+        when(ticketService.obtenerDuplicados(1L)).thenReturn(List.of(duplicado));
+
+        mockMvc.perform(get("/api/tickets/1/duplicados"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].id").value(2))
+               .andExpect(jsonPath("$[0].ticketPadreId").value(1));
+    }
+
+    @Test
+    void testObtenerTicketsConCampos() throws Exception {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        campos.put("id", 1L);
+        campos.put("titulo", "Ticket 1");
+        when(ticketService.buscarCamposTickets(eq(List.of("titulo")), isNull(), isNull(), isNull(), isNull(),
+                isNull(), eq(1)))
+            .thenReturn(List.of(campos));
+        when(assembler.toModelParcial(any())).thenAnswer(invocation ->
+            new TicketParcial(invocation.getArgument(0)).add(Link.of("/api/tickets/1").withSelfRel()));
+
+        mockMvc.perform(get("/api/tickets?fields=titulo&limite=1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].id").value(1))
+               .andExpect(jsonPath("$.content[0].titulo").value("Ticket 1"))
+               .andExpect(jsonPath("$.content[0].descripcionTicket").doesNotExist())
+               .andExpect(jsonPath("$.links[?(@.rel=='next')].href", hasItem(containsString("fields=titulo"))));
+    }
+
+    @Test
+    void testObtenerTicketPorIdEnCbor() throws Exception {
+        when(ticketService.obtenerTicketPorId(1L)).thenReturn(Optional.of(ticket));
+
+        MvcResult resultado = mockMvc.perform(get("/api/tickets/1").accept("application/cbor"))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType("application/cbor"))
+               .andReturn();
+
+        assertThat(new CBORMapper().readTree(resultado.getResponse().getContentAsByteArray())
+            .get("titulo").asText()).isEqualTo("Ticket 1");
+    }
+
+    @Test
+    void testCrearTicketsEnLoteDesdeArreglo() throws Exception {
+        when(ticketService.crearTickets(any())).thenAnswer(invocation -> contar(invocation.getArgument(0)));
+
+        mockMvc.perform(post("/api/tickets/lote")
+               .contentType("application/json")
+               .content("[{\"titulo\":\"A\",\"descripcionTicket\":\"a\",\"creadoPor\":\"Admin\"}," +
+                        "{\"titulo\":\"B\",\"descripcionTicket\":\"b\",\"creadoPor\":\"Admin\"}]"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.creados").value(2));
+    }
+
+    @Test
+    void testCrearTicketsEnLoteDesdeNdjson() throws Exception {
+        when(ticketService.crearTickets(any())).thenAnswer(invocation -> contar(invocation.getArgument(0)));
+
+        mockMvc.perform(post("/api/tickets/lote")
+               .contentType("application/x-ndjson")
+               .content("{\"titulo\":\"A\",\"descripcionTicket\":\"a\",\"creadoPor\":\"Admin\"}\n" +
+                        "{\"titulo\":\"B\",\"descripcionTicket\":\"b\",\"creadoPor\":\"Admin\"}\n" +
+                        "{\"titulo\":\"C\",\"descripcionTicket\":\"c\",\"creadoPor\":\"Admin\"}\n"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.creados").value(3));
+    }
+
+    @Test
+    void testCrearTicketsEnLoteInterrumpido() throws Exception {
+        when(ticketService.crearTickets(any())).thenThrow(new ImportacionInterrumpidaException(500, 501,
+            new SolicitudInvalidaException("titulo, descripcionTicket y creadoPor no pueden ser nulos")));
+
+        mockMvc.perform(post("/api/tickets/lote")
+               .contentType("application/x-ndjson")
+               .content("{\"descripcionTicket\":\"a\",\"creadoPor\":\"Admin\"}\n"))
+               .andExpect(status().isBadRequest())
+               .andExpect(jsonPath("$.creados").value(500));
+    }
+
     @Test
     void testObtenerTodosLosTickets() throws Exception {
-        when(ticketService.obtenerTodosLosTickets()).thenReturn(Arrays.asList(ticket));
+        when(ticketService.obtenerTicketsDesde(null, 50)).thenReturn(Arrays.asList(ticket));
 
         mockMvc.perform(get("/api/tickets"))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$.content[0].titulo").value("Ticket 1"));
+               .andExpect(jsonPath("$.content[0].titulo").value("Ticket 1"))
+               .andExpect(jsonPath("$.links[?(@.rel=='next')]").isEmpty());
+    }
+
+    @Test
+    void testObtenerTicketsPaginaCompletaIncluyeSiguiente() throws Exception {
+        when(ticketService.obtenerTicketsDesde(0L, 1)).thenReturn(Arrays.asList(ticket));
+
+        mockMvc.perform(get("/api/tickets?despuesDe=0&limite=1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].titulo").value("Ticket 1"))
+               .andExpect(jsonPath("$.links[?(@.rel=='next')].href")
+                   .value("http://localhost/api/tickets?despuesDe=1&limite=1"));
+    }
+
+    @Test
+    void testBuscarTicketsPorFiltros() throws Exception {
+        when(ticketService.buscarTickets(EstadoTicket.ABIERTO, CategoriaTicket.RED, "Usuario1", null, null, 50))
+            .thenReturn(Arrays.asList(ticket));
+
+        mockMvc.perform(get("/api/tickets/buscar?estado=ABIERTO&categoria=RED&asignadoA=Usuario1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].asignadoA").value("Usuario1"))
+               .andExpect(jsonPath("$.links[?(@.rel=='next')]").isEmpty());
+    }
+
+    @Test
+    void testBuscarTextoDevuelveFragmentosYSiguientePagina() throws Exception {
+        TicketEncontrado encontrado = new TicketEncontrado(ticket, 1.5f, Map.of("titulo", "<b>Ticket</b> 1"));
+        when(busquedaTickets.buscar("ticket", 0, 1)).thenReturn(new ResultadoBusqueda(List.of(encontrado), 3));
+
+        mockMvc.perform(get("/api/tickets/buscar/texto?q=ticket&tamano=1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].titulo").value("Ticket 1"))
+               .andExpect(jsonPath("$.content[0].relevancia").value(1.5))
+               .andExpect(jsonPath("$.content[0].fragmentos.titulo").value("<b>Ticket</b> 1"))
+               .andExpect(jsonPath("$.content[0].links[0].href").value("/api/tickets/1"))
+               .andExpect(jsonPath("$.page.totalElements").value(3))
+               .andExpect(jsonPath("$.links[?(@.rel=='next')].href").value(
+                   hasItem(containsString("pagina=1"))));
+    }
+
+    @Test
+    void testBuscarTextoVacio() throws Exception {
+        mockMvc.perform(get("/api/tickets/buscar/texto?q= "))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testTransicionarTicket() throws Exception {
+        ticket.setEstadoTicket(EstadoTicket.PROGRESO);
+        ticket.setVersion(2L);
+        when(ticketService.transicionarTicket(1L, EstadoTicket.PROGRESO, 1L)).thenReturn(ticket);
+
+        mockMvc.perform(put("/api/tickets/1/transicion?estado=PROGRESO").header("If-Match", "\"1\""))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "\"2\""))
+               .andExpect(jsonPath("$.estadoTicket").value("PROGRESO"));
+    }
+
+    @Test
+    void testTransicionarTicketNoPermitida() throws Exception {
+        when(ticketService.transicionarTicket(1L, EstadoTicket.PROGRESO, null))
+            .thenThrow(new TransicionInvalidaException("El ticket 1 no puede pasar de CERRADO a PROGRESO"));
+
+        mockMvc.perform(put("/api/tickets/1/transicion?estado=PROGRESO"))
+               .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testExportarTicketsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Ticket> consumidor = invocation.getArgument(0);
+            consumidor.accept(ticket);
+            consumidor.accept(ticket);
+            return null;
+        }).when(ticketService).exportarTickets(any());
+
+        MvcResult resultado = mockMvc.perform(get("/api/tickets").accept("application/x-ndjson"))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        String cuerpo = mockMvc.perform(asyncDispatch(resultado))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType("application/x-ndjson"))
+               .andReturn().getResponse().getContentAsString();
+
+        assertThat(cuerpo.split("\n")).hasSize(2);
+        assertThat(cuerpo).startsWith("{\"id\":1,\"titulo\":\"Ticket 1\"");
+    }
+
+    @Test
+    void testExportarTicketsConservaLaLecturaEnReplicas() throws Exception {
+        MockMvc conReplicas = MockMvcBuilders.standaloneSetup(ticketController)
+            .addInterceptors(new AfinidadPrimario(new PropiedadesReplicas(true, null, 10, Duration.ofSeconds(5),
+                "X-Client-Id")))
+            .build();
+        List<Boolean> enReplicas = new ArrayList<>();
+        List<String> hilos = new ArrayList<>();
+        doAnswer(invocation -> {
+            enReplicas.add(ContextoLectura.enReplicas());
+            hilos.add(Thread.currentThread().getName());
+            return null;
+        }).when(ticketService).exportarTickets(any());
+
+        MvcResult resultado = conReplicas.perform(get("/api/tickets").accept("application/x-ndjson"))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+        conReplicas.perform(asyncDispatch(resultado)).andExpect(status().isOk());
+
+        // la exportacion corrio en otro hilo y, aun asi, leyo de las replicas
+        assertThat(hilos).singleElement().isNotEqualTo(Thread.currentThread().getName());
+        assertThat(enReplicas).containsExactly(true);
+        assertThat(ContextoLectura.enReplicas()).isFalse();
     }
 
     @Test
@@ -125,7 +409,7 @@ public class TicketControllerTest {
         ticketActualizado.setAsignadoA("Usuario2");
         ticketActualizado.setCreadoPor("Admin");
 
-        when(ticketService.actualizarTicket(eq(1L), any(Ticket.class))).thenReturn(ticketActualizado);
+        when(ticketService.actualizarTicket(eq(1L), any(Ticket.class), isNull())).thenReturn(ticketActualizado);
 
         mockMvc.perform(put("/api/tickets/1")
                .contentType("application/json")
@@ -142,20 +426,47 @@ public class TicketControllerTest {
         ticketAsignado.setId(1L);
         ticketAsignado.setAsignadoA("Usuario2");
 
-        when(ticketService.asignarTicket(eq(1L), eq("Usuario2"))).thenReturn(ticketAsignado);
+        when(ticketService.asignarTicket(eq(1L), eq("Usuario2"), isNull())).thenReturn(ticketAsignado);
 
         mockMvc.perform(put("/api/tickets/1/asignar?usuarioId=Usuario2"))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.asignadoA").value("Usuario2"));
     }
 
+    @Test
+    void testParchearTicket() throws Exception {
+        Ticket ticketParcheado = new Ticket();
+        ticketParcheado.setId(1L);
+        ticketParcheado.setTitulo("Ticket 1");
+        ticketParcheado.setEstadoTicket(EstadoTicket.PROGRESO);
+
+        when(ticketService.parchearTicket(eq(1L), any(), isNull())).thenReturn(ticketParcheado);
+
+        mockMvc.perform(patch("/api/tickets/1")
+               .contentType("application/merge-patch+json")
+               .content("{\"estadoTicket\":\"PROGRESO\"}"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.estadoTicket").value("PROGRESO"));
+    }
+
+    @Test
+    void testParchearTicketInvalido() throws Exception {
+        when(ticketService.parchearTicket(eq(1L), any(), isNull()))
+            .thenThrow(new SolicitudInvalidaException("El parche debe ser un objeto JSON"));
+
+        mockMvc.perform(patch("/api/tickets/1")
+               .contentType("application/merge-patch+json")
+               .content("[]"))
+               .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testCategorizarTicket() throws Exception {
         Ticket ticketCategorizado = new Ticket();
         ticketCategorizado.setId(1L);
         ticketCategorizado.setCategoriaTicket(CategoriaTicket.SOFTWARE);
 
-        when(ticketService.categorizarTicket(eq(1L), eq(CategoriaTicket.SOFTWARE))).thenReturn(ticketCategorizado);
+        when(ticketService.categorizarTicket(eq(1L), eq(CategoriaTicket.SOFTWARE), isNull())).thenReturn(ticketCategorizado);
 
         mockMvc.perform(put("/api/tickets/1/categorizar?categoria=SOFTWARE"))
                .andExpect(status().isOk())
@@ -172,6 +483,52 @@ public class TicketControllerTest {
                .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void testObtenerTicketPorIdDevuelveEtag() throws Exception {
+        ticket.setVersion(3L);
+        when(ticketService.obtenerTicketPorId(1L)).thenReturn(Optional.of(ticket));
+
+        mockMvc.perform(get("/api/tickets/1"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    void testObtenerTicketPorIdNoModificado() throws Exception {
+        ticket.setVersion(3L);
+        when(ticketService.obtenerTicketPorId(1L)).thenReturn(Optional.of(ticket));
+
+        mockMvc.perform(get("/api/tickets/1").header("If-None-Match", "\"3\""))
+               .andExpect(status().isNotModified())
+               .andExpect(content().string(""));
+    }
+
+    @Test
+    void testActualizarTicketConVersionObsoleta() throws Exception {
+        when(ticketService.actualizarTicket(eq(1L), any(Ticket.class), eq(2L)))
+            .thenThrow(new OptimisticLockingFailureException("version obsoleta"));
+
+        mockMvc.perform(put("/api/tickets/1")
+               .header("If-Match", "\"2\"")
+               .contentType("application/json")
+               .content("{\"titulo\":\"Ticket 1\"}"))
+               .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testAsignarTicketConVersion() throws Exception {
+        Ticket ticketAsignado = new Ticket();
+        ticketAsignado.setId(1L);
+        ticketAsignado.setAsignadoA("Usuario2");
+        ticketAsignado.setVersion(4L);
+
+        when(ticketService.asignarTicket(eq(1L), eq("Usuario2"), eq(3L))).thenReturn(ticketAsignado);
+
+        mockMvc.perform(put("/api/tickets/1/asignar?usuarioId=Usuario2").header("If-Match", "\"3\""))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "\"4\""));
+    }
+
     @Test
     void testObtenerTicketPorIdNoExistente() throws Exception {
         when(ticketService.obtenerTicketPorId(999L)).thenReturn(Optional.empty());
@@ -182,7 +539,7 @@ public class TicketControllerTest {
 
     @Test
     void testActualizarTicketNoExistente() throws Exception {
-        when(ticketService.actualizarTicket(eq(999L), any(Ticket.class))).thenReturn(null);
+        when(ticketService.actualizarTicket(eq(999L), any(Ticket.class), isNull())).thenReturn(null);
 
         mockMvc.perform(put("/api/tickets/999")
                .contentType("application/json")
@@ -192,9 +549,18 @@ public class TicketControllerTest {
 
     @Test
     void testAsignarTicketConUsuarioNoExistente() throws Exception {
-        when(ticketService.asignarTicket(eq(999L), eq("UsuarioNoExistente"))).thenReturn(null);
+        when(ticketService.asignarTicket(eq(999L), eq("UsuarioNoExistente"), isNull())).thenReturn(null);
 
         mockMvc.perform(put("/api/tickets/999/asignar?usuarioId=UsuarioNoExistente"))
                .andExpect(status().isNotFound());
     }
+
+    private static int contar(Iterator<Ticket> tickets) {
+        int total = 0;
+        while (tickets.hasNext()) {
+            tickets.next();
+            total++;
+        }
+        return total;
+    }
 }
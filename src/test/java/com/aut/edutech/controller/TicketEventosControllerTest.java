@@ -0,0 +1,162 @@
+package com.aut.edutech.controller;
+
+import com.aut.edutech.evento.DifusionEventos;
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public class TicketEventosControllerTest {
+
+    private DifusionEventos difusion;
+    private SimpleMeterRegistry registro;
+    private MockMvc mockMvc;
+
+    // los envios corren en el hilo del test, salvo cuando se retienen para simular un cliente lento
+    private final List<Runnable> retenidos = new ArrayList<>();
+    private boolean retener;
+
+    @BeforeEach
+    void setUp() {
+        difusion = new DifusionEventos();
+        registro = new SimpleMeterRegistry();
+        Executor executor = tarea -> {
+            if (retener) {
+                retenidos.add(tarea);
+            } else {
+                tarea.run();
+            }
+        };
+        ReflectionTestUtils.setField(difusion, "registro", registro);
+        ReflectionTestUtils.setField(difusion, "tamanoHistorial", 4);
+        ReflectionTestUtils.setField(difusion, "tamanoBuffer", 2);
+        ReflectionTestUtils.setField(difusion, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(difusion, "hilos", 1);
+        ReflectionTestUtils.invokeMethod(difusion, "iniciar");
+        ReflectionTestUtils.invokeMethod(difusion, "cerrar");
+        ReflectionTestUtils.setField(difusion, "executor", executor);
+
+        TicketEventosController controller = new TicketEventosController();
+        ReflectionTestUtils.setField(controller, "difusion", difusion);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void testFiltraPorAsignado() throws Exception {
+        MvcResult resultado = suscribir("/api/tickets/eventos?asignadoA=Usuario1", null);
+
+        difusion.alCambiarTicket(asignacion(1L, null, "Usuario1"));
+        difusion.alCambiarTicket(asignacion(2L, null, "Usuario2"));
+        // se entera tambien de que le quitan el ticket
+        difusion.alCambiarTicket(asignacion(1L, "Usuario1", "Usuario2"));
+
+        String cuerpo = resultado.getResponse().getContentAsString();
+        assertThat(cuerpo.split("event:asignado", -1)).hasSize(3);
+        assertThat(cuerpo).doesNotContain("\"id\":2");
+    }
+
+    @Test
+    void testReanudaDesdeUltimoEvento() throws Exception {
+        MvcResult primero = suscribir("/api/tickets/eventos", null);
+        difusion.alCambiarTicket(asignacion(1L, null, "Usuario1"));
+        difusion.alCambiarTicket(asignacion(2L, null, "Usuario1"));
+        difusion.alCambiarTicket(asignacion(3L, null, "Usuario1"));
+        List<String> ids = ids(primero.getResponse().getContentAsString());
+        assertThat(ids).hasSize(3);
+
+        MvcResult reanudado = suscribir("/api/tickets/eventos", ids.get(0));
+
+        assertThat(ids(reanudado.getResponse().getContentAsString())).containsExactly(ids.get(1), ids.get(2));
+    }
+
+    @Test
+    void testIdDesconocidoPideReinicio() throws Exception {
+        difusion.alCambiarTicket(asignacion(1L, null, "Usuario1"));
+
+        MvcResult resultado = suscribir("/api/tickets/eventos", "0-7");
+
+        String cuerpo = resultado.getResponse().getContentAsString();
+        assertThat(cuerpo).startsWith("event:reinicio");
+        assertThat(ids(cuerpo)).hasSize(1);
+    }
+
+    @Test
+    void testClienteLentoDescartaLosMasAntiguos() throws Exception {
+        MvcResult resultado = suscribir("/api/tickets/eventos", null);
+        retener = true;
+        difusion.alCambiarTicket(asignacion(1L, null, "Usuario1"));
+        difusion.alCambiarTicket(asignacion(2L, null, "Usuario1"));
+        difusion.alCambiarTicket(asignacion(3L, null, "Usuario1"));
+        retener = false;
+        retenidos.forEach(Runnable::run);
+
+        String cuerpo = resultado.getResponse().getContentAsString();
+        assertThat(ids(cuerpo)).hasSize(2);
+        assertThat(cuerpo).doesNotContain("\"id\":1,");
+        assertThat(registro.get("tickets.eventos.descartados").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testPublicacionConcurrenteLlegaEnOrden() throws Exception {
+        ReflectionTestUtils.setField(difusion, "tamanoHistorial", 1024);
+        ReflectionTestUtils.setField(difusion, "tamanoBuffer", 1024);
+        ReflectionTestUtils.invokeMethod(difusion, "iniciar");
+        try {
+            MvcResult resultado = suscribir("/api/tickets/eventos", null);
+            ExecutorService publicadores = Executors.newFixedThreadPool(4);
+            for (long i = 1; i <= 200; i++) {
+                long id = i;
+                publicadores.execute(() -> difusion.alCambiarTicket(asignacion(id, null, "Usuario1")));
+            }
+            publicadores.shutdown();
+            assertThat(publicadores.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (ids(resultado.getResponse().getContentAsString()).size() < 200 && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+            List<Long> secuencias = ids(resultado.getResponse().getContentAsString()).stream()
+                .map(id -> Long.valueOf(id.substring(id.indexOf('-') + 1))).toList();
+            assertThat(secuencias).hasSize(200).isSorted();
+        } finally {
+            ReflectionTestUtils.invokeMethod(difusion, "cerrar");
+        }
+    }
+
+    private MvcResult suscribir(String url, String lastEventId) throws Exception {
+        var peticion = get(url);
+        if (lastEventId != null) {
+            peticion.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(peticion).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private static List<String> ids(String cuerpo) {
+        return cuerpo.lines().filter(l -> l.startsWith("id:")).map(l -> l.substring(3)).toList();
+    }
+
+    private static TicketEvento asignacion(Long id, String antes, String despues) {
+        Ticket anterior = Ticket.builder().id(id).titulo("Ticket " + id).estadoTicket(EstadoTicket.ABIERTO)
+            .categoriaTicket(CategoriaTicket.SOFTWARE).asignadoA(antes).creadoPor("Admin").build();
+        return new TicketEvento(TicketEvento.Tipo.ASIGNADO, anterior, anterior.toBuilder().asignadoA(despues).build());
+    }
+}
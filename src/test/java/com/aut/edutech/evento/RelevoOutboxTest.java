@@ -0,0 +1,156 @@
+package com.aut.edutech.evento;
+
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.EventoOutbox;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.EventoOutboxRepository;
+import com.aut.edutech.service.TicketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+public class RelevoOutboxTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private EventoOutboxRepository outboxRepository;
+
+    @Autowired
+    private RelevoOutbox relevo;
+
+    @Autowired
+    private PublicadorEventosMemoria publicador;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAllInBatch();
+        publicador.limpiar();
+    }
+
+    @Test
+    void testCadaCambioDejaUnEventoQueSePublicaEnOrden() {
+        Ticket ticket = ticketService.crearTicket(nuevoTicket());
+        ticketService.asignarTicket(ticket.getId(), "Usuario1", null);
+        assertThat(outboxRepository.count()).isEqualTo(2);
+
+        relevo.relevar();
+
+        List<EventoOutbox> publicados = publicador.publicados();
+        assertThat(publicados).extracting(EventoOutbox::getTipo)
+            .containsExactly(TicketEvento.Tipo.CREADO, TicketEvento.Tipo.ASIGNADO);
+        assertThat(publicados).allMatch(e -> e.getTicketId().equals(ticket.getId()));
+        assertThat(publicados.get(1).getPayload()).contains("\"asignadoA\":\"Usuario1\"");
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void testUnCambioRechazadoNoDejaEvento() {
+        Ticket ticket = ticketService.crearTicket(nuevoTicket());
+        outboxRepository.deleteAllInBatch();
+
+        assertThatThrownBy(() -> ticketService.asignarTicket(ticket.getId(), "Usuario1", ticket.getVersion() + 1))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void testRelevoPorLotes() {
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tickets.add(nuevoTicket());
+        }
+        ticketService.crearTickets(tickets.iterator());
+        ReflectionTestUtils.setField(relevo, "tamanoLote", 2);
+        try {
+            relevo.relevar();
+        } finally {
+            ReflectionTestUtils.setField(relevo, "tamanoLote", 100);
+        }
+
+        assertThat(publicador.publicados()).extracting(EventoOutbox::getId).hasSize(5).isSorted();
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void testPublicaFueraDeLaTransaccionYLiberaSiFalla() {
+        ticketService.crearTicket(nuevoTicket());
+        List<Boolean> enTransaccion = new ArrayList<>();
+        ReflectionTestUtils.setField(relevo, "publicador", (PublicadorEventos) lote -> {
+            enTransaccion.add(TransactionSynchronizationManager.isActualTransactionActive());
+            throw new IllegalStateException("broker caido");
+        });
+        try {
+            assertThatThrownBy(relevo::relevar).hasMessage("broker caido");
+        } finally {
+            ReflectionTestUtils.setField(relevo, "publicador", publicador);
+        }
+
+        assertThat(enTransaccion).containsExactly(false);
+        // el lote vuelve a estar libre y la siguiente pasada lo publica
+        assertThat(outboxRepository.findAll()).singleElement()
+            .extracting(EventoOutbox::getReclamo).isNull();
+        relevo.relevar();
+        assertThat(publicador.publicados()).hasSize(1);
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void testReclamoCaducadoSeVuelveAPublicar() {
+        ticketService.crearTicket(nuevoTicket());
+        // un relevo que cayo tras reclamar el lote
+        EventoOutbox evento = outboxRepository.findAll().get(0);
+        evento.setReclamo("relevo-caido");
+        evento.setReclamadoEn(Instant.now().minus(Duration.ofMinutes(5)));
+        outboxRepository.save(evento);
+
+        relevo.relevar();
+
+        assertThat(publicador.publicados()).extracting(EventoOutbox::getId).containsExactly(evento.getId());
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void testNoSeAdelantaAUnEventoAnteriorReclamadoPorOtroRelevo() {
+        Ticket primero = ticketService.crearTicket(nuevoTicket());
+        // otro relevo tiene en curso la creacion del primer ticket
+        EventoOutbox enCurso = outboxRepository.findAll().get(0);
+        enCurso.setReclamo("otro-relevo");
+        enCurso.setReclamadoEn(Instant.now());
+        outboxRepository.save(enCurso);
+        ticketService.asignarTicket(primero.getId(), "Usuario1", null);
+        Ticket segundo = ticketService.crearTicket(nuevoTicket());
+
+        relevo.relevar();
+
+        // la asignacion del primero espera a que se publique su creacion; el segundo ticket sale sin esperar
+        assertThat(publicador.publicados()).extracting(EventoOutbox::getTicketId).containsExactly(segundo.getId());
+        assertThat(outboxRepository.findAll()).extracting(EventoOutbox::getTipo)
+            .containsExactly(TicketEvento.Tipo.CREADO, TicketEvento.Tipo.ASIGNADO);
+
+        outboxRepository.liberar("otro-relevo");
+        relevo.relevar();
+        assertThat(publicador.publicados()).extracting(EventoOutbox::getTicketId)
+            .containsExactly(segundo.getId(), primero.getId(), primero.getId());
+    }
+
+    private static Ticket nuevoTicket() {
+        return Ticket.builder().titulo("Outbox").descripcionTicket("Prueba de outbox")
+            .estadoTicket(EstadoTicket.ABIERTO).creadoPor("Admin").build();
+    }
+}
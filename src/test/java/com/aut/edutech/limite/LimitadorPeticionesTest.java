@@ -0,0 +1,151 @@
+package com.aut.edutech.limite;
+
+import com.aut.edutech.controller.TicketController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LimitadorPeticionesTest {
+
+    // MockHttpServletRequest llega desde 127.0.0.1
+    private static final String PROXY = "127.0.0.1";
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private LimitadorPeticiones limitador;
+
+    @BeforeEach
+    void setUp() {
+        iniciar(new PropiedadesLimite(true, "X-Client-Id", 3, 1, Map.of(
+            "exportarTickets", new PropiedadesLimite.Cuota(1, null)), 2, 1000, List.of(PROXY)));
+    }
+
+    @Test
+    void testCubo() {
+        CuboTokens cubo = new CuboTokens(2, 10, 0);
+
+        assertThat(cubo.consumir(0)).isZero();
+        assertThat(cubo.consumir(0)).isZero();
+        assertThat(cubo.consumir(0)).isEqualTo(100_000_000);
+        // a 10 por segundo, en 100 ms se repone un token
+        assertThat(cubo.consumir(100_000_000)).isZero();
+        assertThat(cubo.disponibles(100_000_000)).isZero();
+        assertThat(cubo.disponibles(1_000_000_000)).isEqualTo(2);
+    }
+
+    @Test
+    void testCuotaPorClienteYEndpoint() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(atender("integracion", "obtenerTickets").getStatus()).isEqualTo(200);
+        }
+        MockHttpServletResponse rechazada = atender("integracion", "obtenerTickets");
+
+        assertThat(rechazada.getStatus()).isEqualTo(429);
+        assertThat(rechazada.getHeader("Retry-After")).isEqualTo("1");
+        // otro cliente y otro endpoint tienen su propio cubo
+        assertThat(atender("movil", "obtenerTickets").getStatus()).isEqualTo(200);
+        assertThat(atender("integracion", "exportarTickets").getStatus()).isEqualTo(200);
+        assertThat(atender("integracion", "exportarTickets").getStatus()).isEqualTo(429);
+        assertThat(registro.get(LimitadorPeticiones.RECHAZOS).tag("motivo", "cuota").counters())
+            .extracting(c -> c.count()).containsExactlyInAnyOrder(1.0, 1.0);
+        assertThat(limitador.enCurso()).isZero();
+    }
+
+    @Test
+    void testDescartePorConcurrencia() throws Exception {
+        MockHttpServletRequest primera = peticion("a");
+        MockHttpServletRequest segunda = peticion("b");
+        assertThat(limitador.preHandle(primera, new MockHttpServletResponse(), handler("obtenerTickets"))).isTrue();
+        assertThat(limitador.preHandle(segunda, new MockHttpServletResponse(), handler("obtenerTickets"))).isTrue();
+
+        MockHttpServletResponse descartada = atender("c", "obtenerTickets");
+
+        assertThat(descartada.getStatus()).isEqualTo(503);
+        assertThat(descartada.getHeader("Retry-After")).isNotNull();
+        assertThat(registro.get("tickets.limite.en_curso").gauge().value()).isEqualTo(2);
+
+        // una respuesta asincrona libera su plaza al pasar a segundo plano y no la vuelve a liberar al terminar
+        limitador.afterConcurrentHandlingStarted(primera, new MockHttpServletResponse(), handler("obtenerTickets"));
+        limitador.afterCompletion(primera, new MockHttpServletResponse(), handler("obtenerTickets"), null);
+        assertThat(limitador.enCurso()).isEqualTo(1);
+        assertThat(atender("c", "obtenerTickets").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void testCabeceraIgnoradaFueraDeLosProxiesConfiables() throws Exception {
+        iniciar(new PropiedadesLimite(true, "X-Client-Id", 3, 1, null, 2, 1000, List.of("10.0.0.5")));
+
+        // cambiar de cabecera en cada peticion no da un cubo nuevo: cuenta la IP
+        for (int i = 0; i < 3; i++) {
+            assertThat(atender("cliente-" + i, "obtenerTickets").getStatus()).isEqualTo(200);
+        }
+        assertThat(atender("cliente-nuevo", "obtenerTickets").getStatus()).isEqualTo(429);
+
+        MockHttpServletRequest desdeProxy = peticion("movil");
+        desdeProxy.setRemoteAddr("10.0.0.5");
+        assertThat(limitador.preHandle(desdeProxy, new MockHttpServletResponse(), handler("obtenerTickets"))).isTrue();
+    }
+
+    @Test
+    void testExportacionConservaSuPlazaHastaTerminar() throws Exception {
+        MockHttpServletRequest exportacion = peticion("a");
+        HandlerMethod exportar = handler("exportarTickets");
+        assertThat(limitador.preHandle(exportacion, new MockHttpServletResponse(), exportar)).isTrue();
+
+        // la escritura sigue ocupando una conexion del pool aunque el hilo de la peticion quede libre
+        limitador.afterConcurrentHandlingStarted(exportacion, new MockHttpServletResponse(), exportar);
+        assertThat(limitador.enCurso()).isEqualTo(1);
+
+        limitador.afterCompletion(exportacion, new MockHttpServletResponse(), exportar, null);
+        assertThat(limitador.enCurso()).isZero();
+    }
+
+    @Test
+    void testDeshabilitado() throws Exception {
+        iniciar(new PropiedadesLimite(false, "X-Client-Id", 1, 1, null, 1, 1000, null));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(atender("integracion", "obtenerTickets").getStatus()).isEqualTo(200);
+        }
+    }
+
+    private void iniciar(PropiedadesLimite propiedades) {
+        limitador = new LimitadorPeticiones();
+        ReflectionTestUtils.setField(limitador, "propiedades", propiedades);
+        ReflectionTestUtils.setField(limitador, "registro", registro);
+        registro.clear();
+        limitador.iniciar();
+    }
+
+    private MockHttpServletResponse atender(String cliente, String endpoint) throws Exception {
+        MockHttpServletRequest request = peticion(cliente);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = handler(endpoint);
+        if (limitador.preHandle(request, response, handler)) {
+            limitador.afterCompletion(request, response, handler, null);
+        }
+        return response;
+    }
+
+    private static MockHttpServletRequest peticion(String cliente) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tickets");
+        request.addHeader("X-Client-Id", cliente);
+        return request;
+    }
+
+    private static HandlerMethod handler(String endpoint) throws NoSuchMethodException {
+        return switch (endpoint) {
+            case "obtenerTickets" -> new HandlerMethod(new Object(),
+                TicketController.class.getMethod(endpoint, Long.class, Integer.class));
+            default -> new HandlerMethod(new Object(), TicketController.class.getMethod(endpoint));
+        };
+    }
+}
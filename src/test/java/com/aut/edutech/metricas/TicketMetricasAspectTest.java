@@ -0,0 +1,88 @@
+package com.aut.edutech.metricas;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.service.TicketService;
+import com.aut.edutech.service.TransicionInvalidaException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+public class TicketMetricasAspectTest {
+
+    private SimpleMeterRegistry registro;
+    private TicketService ticketService;
+    private TicketService proxy;
+
+    @BeforeEach
+    void setUp() {
+        registro = new SimpleMeterRegistry();
+        TicketMetricasAspect aspecto = new TicketMetricasAspect();
+        ReflectionTestUtils.setField(aspecto, "registro", registro);
+
+        ticketService = Mockito.mock(TicketService.class);
+        AspectJProxyFactory fabrica = new AspectJProxyFactory(ticketService);
+        fabrica.addAspect(aspecto);
+        proxy = fabrica.getProxy();
+    }
+
+    @Test
+    void testEtiquetaOperacionResultadoCategoriaYEstado() {
+        Ticket ticket = new Ticket();
+        ticket.setId(1L);
+        ticket.setCategoriaTicket(CategoriaTicket.RED);
+        ticket.setEstadoTicket(EstadoTicket.ABIERTO);
+        when(ticketService.obtenerTicketPorId(1L)).thenReturn(Optional.of(ticket));
+
+        proxy.obtenerTicketPorId(1L);
+
+        assertThat(registro.get(TicketMetricasAspect.METRICA)
+            .tags("operacion", "obtenerTicketPorId", "resultado", "ok", "categoria", "RED", "estado", "ABIERTO")
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRegistraNoEncontradoYConflicto() {
+        when(ticketService.obtenerTicketPorId(2L)).thenReturn(Optional.empty());
+        when(ticketService.asignarTicket(1L, "Usuario2", 0L))
+            .thenThrow(new OptimisticLockingFailureException("version obsoleta"));
+
+        proxy.obtenerTicketPorId(2L);
+        assertThatThrownBy(() -> proxy.asignarTicket(1L, "Usuario2", 0L))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(registro.get(TicketMetricasAspect.METRICA)
+            .tags("operacion", "obtenerTicketPorId", "resultado", "no_encontrado").timer().count()).isEqualTo(1);
+        assertThat(registro.get(TicketMetricasAspect.METRICA)
+            .tags("operacion", "asignarTicket", "resultado", "conflicto").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSoloLaTransicionInvalidaCuentaComoConflicto() {
+        when(ticketService.transicionarTicket(1L, EstadoTicket.PROGRESO, null))
+            .thenThrow(new TransicionInvalidaException("El ticket 1 no puede pasar de CERRADO a PROGRESO"));
+        when(ticketService.transicionarTicket(2L, EstadoTicket.PROGRESO, null))
+            .thenThrow(new IllegalStateException("fallo interno"));
+
+        assertThatThrownBy(() -> proxy.transicionarTicket(1L, EstadoTicket.PROGRESO, null))
+            .isInstanceOf(TransicionInvalidaException.class);
+        assertThatThrownBy(() -> proxy.transicionarTicket(2L, EstadoTicket.PROGRESO, null))
+            .isInstanceOf(IllegalStateException.class);
+
+        assertThat(registro.get(TicketMetricasAspect.METRICA)
+            .tags("operacion", "transicionarTicket", "resultado", "conflicto").timer().count()).isEqualTo(1);
+        assertThat(registro.get(TicketMetricasAspect.METRICA)
+            .tags("operacion", "transicionarTicket", "resultado", "error").timer().count()).isEqualTo(1);
+    }
+}
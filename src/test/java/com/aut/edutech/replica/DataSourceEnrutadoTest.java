@@ -0,0 +1,126 @@
+package com.aut.edutech.replica;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+import com.aut.edutech.service.TicketService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// dos H2 en memoria: el primario que crea Hibernate y una replica con el mismo esquema pero sin datos,
+// asi se ve de cual de las dos sale cada lectura
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:primario_replicas;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "soporte.replicas.habilitado=true",
+    "soporte.replicas.nodos[0].url=jdbc:h2:mem:replica_tickets;MODE=MySQL;DB_CLOSE_DELAY=-1"
+})
+public class DataSourceEnrutadoTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    @Qualifier("dataSourcePrimario")
+    private DataSource primario;
+
+    @Autowired
+    private DataSourceEnrutado enrutado;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate replica = new JdbcTemplate(enrutado.getResolvedDataSources().get("replica-0"));
+        replica.execute("DROP ALL OBJECTS");
+        List<String> esquema = new JdbcTemplate(primario).queryForList("SCRIPT NODATA", String.class);
+        esquema.stream().filter(sentencia -> !sentencia.startsWith("CREATE USER")).forEach(replica::execute);
+        ticketRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ContextoLectura.limpiar();
+    }
+
+    @Test
+    void testLecturasDeSoloLecturaVanALaReplica() {
+        Ticket creado = ticketService.crearTicket(nuevoTicket());
+        ContextoLectura.usarReplicas();
+
+        assertThat(ticketService.obtenerTicketsDesde(null, 10)).isEmpty();
+        assertThat(ticketService.buscarTickets(null, CategoriaTicket.SOFTWARE, null, null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void testFueraDeUnaConsultaSeLeeDelPrimario() {
+        Ticket creado = ticketService.crearTicket(nuevoTicket());
+
+        assertThat(ticketService.obtenerTicketsDesde(null, 10)).extracting(Ticket::getId)
+            .containsExactly(creado.getId());
+        // los repositorios son readOnly por defecto, pero sin la marca tampoco van a la replica
+        assertThat(ticketRepository.findAll()).extracting(Ticket::getId).containsExactly(creado.getId());
+    }
+
+    @Test
+    void testUnaTransaccionDeEscrituraVaAlPrimario() {
+        ContextoLectura.usarReplicas();
+
+        Ticket creado = ticketService.crearTicket(nuevoTicket());
+
+        assertThat(ticketService.asignarTicket(creado.getId(), "ana", null)).isNotNull();
+    }
+
+    @Test
+    void testAfinidadTrasUnaEscrituraDelMismoCliente() throws Exception {
+        AfinidadPrimario afinidad = new AfinidadPrimario(
+            new PropiedadesReplicas(true, null, 10, Duration.ofMinutes(1), "X-Client-Id"));
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+
+        afinidad.preHandle(peticion("GET", "movil"), respuesta, null);
+        assertThat(ContextoLectura.enReplicas()).isTrue();
+        afinidad.afterCompletion(peticion("GET", "movil"), respuesta, null, null);
+        assertThat(ContextoLectura.enReplicas()).isFalse();
+
+        afinidad.preHandle(peticion("POST", "movil"), respuesta, null);
+        assertThat(ContextoLectura.enReplicas()).isFalse();
+        afinidad.afterCompletion(peticion("POST", "movil"), respuesta, null, null);
+
+        afinidad.preHandle(peticion("GET", "otro"), respuesta, null);
+        assertThat(ContextoLectura.enReplicas()).isTrue();
+        afinidad.afterCompletion(peticion("GET", "otro"), respuesta, null, null);
+
+        // el cliente que acaba de escribir sigue en el primario
+        afinidad.preHandle(peticion("GET", "movil"), respuesta, null);
+        assertThat(ContextoLectura.enReplicas()).isFalse();
+        afinidad.afterCompletion(peticion("GET", "movil"), respuesta, null, null);
+    }
+
+    private static MockHttpServletRequest peticion(String metodo, String cliente) {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, "/api/tickets");
+        request.addHeader("X-Client-Id", cliente);
+        return request;
+    }
+
+    private static Ticket nuevoTicket() {
+        return Ticket.builder()
+            .titulo("Replica")
+            .descripcionTicket("Lectura desde la replica")
+            .categoriaTicket(CategoriaTicket.SOFTWARE)
+            .creadoPor("Admin")
+            .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.aut.edutech.repository;
+
+import com.aut.edutech.SoporteApplication;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.service.TicketService;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// una base de produccion anterior a Flyway: solo la tabla ticket que ddl-auto=update generaba para la entidad
+// original (id auto_increment, sin version ni fechas). Se marca con linea base en V1 y las migraciones
+// siguientes deben dejarla en un esquema que Hibernate valida y con el que la aplicacion trabaja
+public class MigracionLineaBaseTest {
+
+    private static final String URL = "jdbc:h2:mem:linea_base_tickets;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    // copia literal del esquema desplegado; no se lee de V1 para que un cambio en V1 no cambie la prueba
+    private static final String ESQUEMA_ORIGINAL = """
+        create table ticket (
+            id bigint not null auto_increment,
+            asignadoa varchar(255),
+            categoria_ticket enum ('ACCESO','HARDWARE','OTRO','RED','SOFTWARE'),
+            creado_por varchar(255) not null,
+            descripcion_ticket varchar(1000) not null,
+            estado_ticket enum ('ABIERTO','ASIGNADO','CANCELADO','CERRADO','FINALIZADO','PROGRESO'),
+            titulo varchar(50) not null,
+            primary key (id)
+        ) engine=InnoDB""";
+
+    @Test
+    void testBaseExistenteMigraTrasLaLineaBase() {
+        DriverManagerDataSource datos = new DriverManagerDataSource(URL, "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(datos);
+        jdbc.execute(ESQUEMA_ORIGINAL);
+        for (int i = 1; i <= 120; i++) {
+            jdbc.update("insert into ticket (titulo, descripcion_ticket, estado_ticket, categoria_ticket, creado_por) "
+                + "values (?, 'Descripcion', ?, 'RED', 'Admin')", "Ticket " + i, i % 2 == 0 ? "CERRADO" : "ABIERTO");
+        }
+
+        Flyway flyway = Flyway.configure()
+            .dataSource(datos)
+            .baselineOnMigrate(true)
+            .baselineVersion("1")
+            .load();
+        flyway.migrate();
+
+        assertThat(Arrays.stream(flyway.info().applied()).map(MigrationInfo::getVersion).map(Object::toString))
+            .containsExactly("1", "2", "3", "4", "5");
+        assertThat(flyway.info().applied()[0].getType().isBaseline()).isTrue();
+        // los bloques nuevos empiezan por encima de los ids existentes
+        assertThat(jdbc.queryForObject("select next_val from ticket_seq", Long.class)).isEqualTo(170L);
+        assertThat(jdbc.queryForObject("select count(*) from ticket where version = 0 and creado_en is not null",
+            Integer.class)).isEqualTo(120);
+        assertThat(jdbc.queryForObject("select count(*) from ticket where resuelto_en is not null", Integer.class))
+            .isEqualTo(60);
+
+        // Hibernate valida el esquema migrado y la aplicacion lee, modifica y crea sobre el
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(SoporteApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + URL,
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+                    "--spring.jpa.hibernate.ddl-auto=validate",
+                    "--spring.flyway.enabled=true")) {
+            TicketService ticketService = contexto.getBean(TicketService.class);
+
+            Ticket existente = ticketService.categorizarTicket(1L, CategoriaTicket.SOFTWARE, 0L);
+            Ticket nuevo = ticketService.crearTicket(Ticket.builder().titulo("Tras migrar")
+                .descripcionTicket("Nuevo").estadoTicket(EstadoTicket.ABIERTO).creadoPor("Admin").build());
+
+            assertThat(existente.getVersion()).isEqualTo(1L);
+            assertThat(nuevo.getId()).isGreaterThan(120L);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.aut.edutech.repository;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.EventoOutbox;
+import com.aut.edutech.model.Ticket;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// el esquema sale solo de db/migration y Hibernate lo valida contra las entidades con el dialecto de MySQL
+// (secuencias en tablas, enum, mediumtext): una entidad que cambie sin su migracion hace fallar este test
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:migraciones_tickets;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+    "spring.flyway.enabled=true",
+    "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class MigracionesTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Test
+    void testMigracionesAplicadas() {
+        assertThat(flyway.info().applied()).extracting(m -> m.getVersion().getVersion()).contains("1", "2", "3", "4", "5");
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void testEsquemaUtilizable() {
+        Ticket ticket = ticketRepository.saveAndFlush(Ticket.builder()
+            .titulo("Impresora")
+            .descripcionTicket("No imprime")
+            .estadoTicket(EstadoTicket.ABIERTO)
+            .categoriaTicket(CategoriaTicket.HARDWARE)
+            .creadoPor("Admin")
+            .build());
+        // mas de los 255 bytes de tinytext
+        String payload = "{\"titulo\":\"" + "x".repeat(5000) + "\"}";
+        EventoOutbox evento = eventoOutboxRepository.saveAndFlush(EventoOutbox.builder()
+            .tipo(TicketEvento.Tipo.CREADO)
+            .ticketId(ticket.getId())
+            .payload(payload)
+            .creadoEn(Instant.now())
+            .build());
+
+        assertThat(ticket.getId()).isNotNull();
+        assertThat(ticket.getVersion()).isZero();
+        assertThat(eventoOutboxRepository.findById(evento.getId())).get()
+            .extracting(EventoOutbox::getPayload).isEqualTo(payload);
+    }
+}
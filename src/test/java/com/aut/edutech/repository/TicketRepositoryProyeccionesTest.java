@@ -0,0 +1,71 @@
+package com.aut.edutech.repository;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.aut.edutech.repository.TicketSpecifications.conCategoria;
+import static com.aut.edutech.repository.TicketSpecifications.idMayorQue;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+public class TicketRepositoryProyeccionesTest {
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    private List<Ticket> tickets;
+
+    @BeforeEach
+    void setUp() {
+        tickets = ticketRepository.saveAll(List.of(
+            ticket("Impresora", CategoriaTicket.HARDWARE),
+            ticket("Correo", CategoriaTicket.SOFTWARE),
+            ticket("Office", CategoriaTicket.SOFTWARE)));
+    }
+
+    @Test
+    void testSoloLosCamposPedidosYSiempreElId() {
+        List<Map<String, Object>> filas = ticketRepository.buscarCampos(null, List.of("titulo", "estadoTicket"), 10);
+
+        assertThat(filas).hasSize(3);
+        assertThat(filas.get(0)).containsOnlyKeys("id", "titulo", "estadoTicket");
+        assertThat(filas.get(0)).containsEntry("id", tickets.get(0).getId())
+            .containsEntry("titulo", "Impresora")
+            .containsEntry("estadoTicket", EstadoTicket.ABIERTO);
+    }
+
+    @Test
+    void testAplicaFiltrosCursorYLimite() {
+        List<Map<String, Object>> filas = ticketRepository.buscarCampos(
+            conCategoria(CategoriaTicket.SOFTWARE).and(idMayorQue(tickets.get(0).getId())), List.of("titulo"), 1);
+
+        assertThat(filas).extracting(f -> f.get("titulo")).containsExactly("Correo");
+    }
+
+    @Test
+    void testCampoDesconocido() {
+        assertThatThrownBy(() -> ticketRepository.buscarCampos(null, List.of("titulo", "contrasena"), 10))
+            .isInstanceOf(InvalidDataAccessApiUsageException.class)
+            .hasMessageContaining("contrasena");
+    }
+
+    private static Ticket ticket(String titulo, CategoriaTicket categoria) {
+        return Ticket.builder()
+            .titulo(titulo)
+            .descripcionTicket("Descripcion larga de " + titulo)
+            .estadoTicket(EstadoTicket.ABIERTO)
+            .categoriaTicket(categoria)
+            .creadoPor("Admin")
+            .build();
+    }
+}
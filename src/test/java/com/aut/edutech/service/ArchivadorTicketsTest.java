@@ -0,0 +1,85 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketArchivadoRepository;
+import com.aut.edutech.repository.TicketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class ArchivadorTicketsTest {
+
+    @Autowired
+    private ArchivadorTickets archivador;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TicketArchivadoRepository archivadoRepository;
+
+    @BeforeEach
+    void setUp() {
+        ticketRepository.deleteAllInBatch();
+        archivadoRepository.deleteAllInBatch();
+        ReflectionTestUtils.setField(archivador, "antiguedad", Duration.ZERO);
+        ReflectionTestUtils.setField(archivador, "tamanoLote", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(archivador, "antiguedad", Duration.ofDays(30));
+        ReflectionTestUtils.setField(archivador, "tamanoLote", 500);
+    }
+
+    @Test
+    void testArchivaSoloTerminalesYLosSigueSirviendo() {
+        List<Ticket> cerrados = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Ticket ticket = ticketService.crearTicket(nuevoTicket());
+            cerrados.add(ticketService.transicionarTicket(ticket.getId(), EstadoTicket.CERRADO, null));
+        }
+        Ticket abierto = ticketService.crearTicket(nuevoTicket());
+
+        int archivados = archivador.archivar();
+
+        assertThat(archivados).isEqualTo(5);
+        assertThat(ticketRepository.findAll()).extracting(Ticket::getId).containsExactly(abierto.getId());
+        assertThat(archivadoRepository.count()).isEqualTo(5);
+        Ticket archivado = ticketService.obtenerTicketPorId(cerrados.get(0).getId()).orElseThrow();
+        assertThat(archivado.getEstadoTicket()).isEqualTo(EstadoTicket.CERRADO);
+        assertThat(archivado.getResueltoEn()).isNotNull();
+
+        // una segunda pasada no encuentra nada mas que mover
+        assertThat(archivador.archivar()).isZero();
+    }
+
+    @Test
+    void testRespetaLaAntiguedad() {
+        Ticket ticket = ticketService.crearTicket(nuevoTicket());
+        ticketService.transicionarTicket(ticket.getId(), EstadoTicket.CANCELADO, null);
+        ReflectionTestUtils.setField(archivador, "antiguedad", Duration.ofDays(1));
+
+        assertThat(archivador.archivar()).isZero();
+        assertThat(ticketRepository.count()).isEqualTo(1);
+    }
+
+    private static Ticket nuevoTicket() {
+        return Ticket.builder().titulo("Archivo").descripcionTicket("Prueba de archivo")
+            .estadoTicket(EstadoTicket.ABIERTO).creadoPor("Admin").build();
+    }
+}
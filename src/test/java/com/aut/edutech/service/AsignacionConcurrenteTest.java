@@ -0,0 +1,66 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// asignaciones y categorizaciones sin If-Match sobre el mismo ticket: ninguna debe fallar con conflicto de version
+@SpringBootTest
+public class AsignacionConcurrenteTest {
+
+    private static final int HILOS = 8;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Test
+    void testCambiosSimultaneosSinIfMatchNoEntranEnConflicto() throws Exception {
+        Ticket ticket = ticketService.crearTicket(Ticket.builder().titulo("Concurrencia")
+            .descripcionTicket("Prueba").estadoTicket(EstadoTicket.ABIERTO)
+            .categoriaTicket(CategoriaTicket.OTRO).creadoPor("Admin").build());
+        long versionInicial = ticket.getVersion();
+
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        try {
+            List<Future<Ticket>> resultados = new ArrayList<>();
+            for (int i = 0; i < HILOS; i++) {
+                int n = i;
+                Callable<Ticket> cambio = () -> {
+                    salida.await();
+                    return n % 2 == 0
+                        ? ticketService.asignarTicket(ticket.getId(), "agente" + n, null)
+                        : ticketService.categorizarTicket(ticket.getId(), CategoriaTicket.RED, null);
+                };
+                resultados.add(hilos.submit(cambio));
+            }
+            salida.countDown();
+            for (Future<Ticket> resultado : resultados) {
+                assertThat(resultado.get()).isNotNull();
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        Ticket finalizado = ticketRepository.findById(ticket.getId()).orElseThrow();
+        assertThat(finalizado.getVersion()).isEqualTo(versionInicial + HILOS);
+        assertThat(finalizado.getCategoriaTicket()).isEqualTo(CategoriaTicket.RED);
+    }
+}
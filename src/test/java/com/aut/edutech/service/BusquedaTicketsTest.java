@@ -0,0 +1,201 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketArchivadoRepository;
+import com.aut.edutech.repository.TicketRepository;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BusquedaTicketsTest {
+
+    @Mock
+    private TicketService ticketService;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private TicketArchivadoRepository archivadoRepository;
+
+    private BusquedaTickets busqueda;
+    private Ticket impresora;
+    private Ticket correo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        busqueda = nueva("");
+
+        impresora = Ticket.builder().id(1L).titulo("La impresora no imprime")
+            .descripcionTicket("La impresora del segundo piso muestra un error de papel").creadoPor("Admin")
+            .actualizadoEn(Instant.parse("2024-05-01T10:00:00Z")).build();
+        correo = Ticket.builder().id(2L).titulo("Correo lento")
+            .descripcionTicket("El correo tarda en cargar; despues de reiniciar la impresora sigue igual")
+            .creadoPor("Admin").actualizadoEn(Instant.parse("2024-05-01T11:00:00Z")).build();
+        doAnswer(inv -> {
+            Consumer<Ticket> consumidor = inv.getArgument(0);
+            consumidor.accept(impresora);
+            consumidor.accept(correo);
+            return null;
+        }).when(ticketService).exportarTickets(any());
+        when(ticketRepository.findAllById(anyIterable())).thenReturn(List.of(correo, impresora));
+        busqueda.reconstruir();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        busqueda.cerrar();
+    }
+
+    @Test
+    void testBuscarOrdenaPorRelevanciaYResalta() throws Exception {
+        // "impresoras" y "impresora" comparten raiz con el analizador en espanol
+        ResultadoBusqueda resultado = busqueda.buscar("impresoras", 0, 10);
+
+        assertThat(resultado.total()).isEqualTo(2);
+        assertThat(resultado.encontrados()).extracting(e -> e.ticket().getId()).containsExactly(1L, 2L);
+        TicketEncontrado primero = resultado.encontrados().get(0);
+        assertThat(primero.relevancia()).isGreaterThan(resultado.encontrados().get(1).relevancia());
+        assertThat(primero.fragmentos().get(BusquedaTickets.TITULO)).contains("<b>impresora</b>");
+        assertThat(resultado.encontrados().get(1).fragmentos()).doesNotContainKey(BusquedaTickets.TITULO);
+    }
+
+    @Test
+    void testCambiosVisiblesTrasRefrescar() throws Exception {
+        Ticket editado = correo.toBuilder().titulo("Correo sin conexion").descripcionTicket("Sin red").build();
+        busqueda.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.ACTUALIZADO, correo, editado));
+        busqueda.refrescar();
+
+        assertThat(busqueda.buscar("impresora", 0, 10).total()).isEqualTo(1);
+        assertThat(busqueda.buscar("conexion", 0, 10).total()).isEqualTo(1);
+    }
+
+    @Test
+    void testResaltadoEscapaElHtmlDelTicket() throws Exception {
+        Ticket malicioso = Ticket.builder().id(3L).titulo("<script>alert(1)</script> escaner roto")
+            .descripcionTicket("El escaner <img src=x onerror=alert(1)> no responde").creadoPor("Admin").build();
+        busqueda.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.CREADO, null, malicioso));
+        busqueda.refrescar();
+        when(ticketRepository.findAllById(anyIterable())).thenReturn(List.of(malicioso));
+
+        TicketEncontrado encontrado = busqueda.buscar("escaner", 0, 10).encontrados().get(0);
+
+        assertThat(encontrado.fragmentos().get(BusquedaTickets.TITULO))
+            .contains("&lt;script&gt;").doesNotContain("<script>").contains("<b>escaner</b>");
+        assertThat(encontrado.fragmentos().get(BusquedaTickets.DESCRIPCION)).doesNotContain("<img");
+    }
+
+    @Test
+    void testIndiceEnDiscoSeReabreSinPerderse(@TempDir Path directorio) throws Exception {
+        BusquedaTickets enDisco = nueva(directorio.toString());
+        enDisco.reconstruir();
+        enDisco.cerrar();
+
+        BusquedaTickets reabierto = nueva(directorio.toString());
+        try {
+            assertThat(reabierto.buscar("impresora", 0, 10).total()).isEqualTo(2);
+        } finally {
+            reabierto.cerrar();
+        }
+    }
+
+    @Test
+    void testIndiceEnDiscoSoloSePoneAlDia(@TempDir Path directorio) throws Exception {
+        BusquedaTickets enDisco = nueva(directorio.toString());
+        enDisco.reconstruir();
+        Ticket editado = correo.toBuilder().titulo("Correo sin conexion").actualizadoEn(Instant.now()).build();
+        enDisco.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.ACTUALIZADO, correo, editado));
+        enDisco.cerrar();
+
+        // mientras estaba parado se edito un ticket y se archivo otro
+        Ticket escaner = Ticket.builder().id(3L).titulo("Escaner roto").descripcionTicket("No escanea")
+            .creadoPor("Admin").actualizadoEn(Instant.now()).build();
+        doAnswer(inv -> {
+            Consumer<Ticket> consumidor = inv.getArgument(1);
+            consumidor.accept(escaner);
+            return null;
+        }).when(ticketService).exportarTicketsActualizadosDesde(any(), any());
+        when(archivadoRepository.idsArchivadosDesde(any())).thenReturn(List.of(1L));
+        clearInvocations(ticketService);
+
+        BusquedaTickets reabierto = nueva(directorio.toString());
+        try {
+            reabierto.reconstruir();
+
+            // desde la ultima marca confirmada (la edicion de 'correo') menos el margen
+            ArgumentCaptor<Instant> desde = ArgumentCaptor.forClass(Instant.class);
+            verify(ticketService).exportarTicketsActualizadosDesde(desde.capture(), any());
+            assertThat(desde.getValue()).isEqualTo(editado.getActualizadoEn().minus(Duration.ofMinutes(5)));
+            verify(archivadoRepository).idsArchivadosDesde(desde.getValue());
+            verify(ticketService, never()).exportarTickets(any());
+            when(ticketRepository.findAllById(anyIterable())).thenReturn(List.of(correo, escaner));
+            assertThat(reabierto.buscar("impresora", 0, 10).total()).isEqualTo(1);
+            assertThat(reabierto.buscar("conexion", 0, 10).total()).isEqualTo(1);
+            assertThat(reabierto.buscar("escaner", 0, 10).total()).isEqualTo(1);
+        } finally {
+            reabierto.cerrar();
+        }
+    }
+
+    @Test
+    void testIndiceEnDiscoSinMarcaSeReconstruye(@TempDir Path directorio) throws Exception {
+        // un indice que escribio una version sin marca en el commit
+        try (IndexWriter antiguo = new IndexWriter(FSDirectory.open(directorio), new IndexWriterConfig())) {
+            antiguo.commit();
+        }
+        clearInvocations(ticketService);
+
+        BusquedaTickets enDisco = nueva(directorio.toString());
+        try {
+            enDisco.reconstruir();
+
+            verify(ticketService).exportarTickets(any());
+            verify(ticketService, never()).exportarTicketsActualizadosDesde(any(), any());
+            assertThat(enDisco.buscar("impresora", 0, 10).total()).isEqualTo(2);
+        } finally {
+            enDisco.cerrar();
+        }
+    }
+
+    @Test
+    void testPaginaFueraDeRango() throws Exception {
+        ResultadoBusqueda resultado = busqueda.buscar("impresora", 1, 10);
+
+        assertThat(resultado.encontrados()).isEmpty();
+        assertThat(resultado.total()).isEqualTo(2);
+    }
+
+    private BusquedaTickets nueva(String directorio) throws Exception {
+        BusquedaTickets nueva = new BusquedaTickets(directorio);
+        ReflectionTestUtils.setField(nueva, "ticketService", ticketService);
+        ReflectionTestUtils.setField(nueva, "ticketRepository", ticketRepository);
+        ReflectionTestUtils.setField(nueva, "archivadoRepository", archivadoRepository);
+        ReflectionTestUtils.setField(nueva, "margen", Duration.ofMinutes(5));
+        return nueva;
+    }
+}
@@ -0,0 +1,183 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class DetectorDuplicadosTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    private DetectorDuplicados detector;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        detector = new DetectorDuplicados();
+        ReflectionTestUtils.setField(detector, "ticketRepository", ticketRepository);
+        ReflectionTestUtils.setField(detector, "habilitado", true);
+        ReflectionTestUtils.setField(detector, "ventana", Duration.ofHours(2));
+        ReflectionTestUtils.setField(detector, "umbral", 0.6);
+    }
+
+    @Test
+    void testEnlazaCasiIdenticosDeLaMismaCategoria() {
+        detector.indexar(guardado(1L, "No puedo entrar a la plataforma", "Me da error al iniciar sesión", "ana"));
+
+        Ticket nuevo = nuevo("no puedo entrar a la plataforma!!", "Me da error al iniciar sesion");
+        detector.enlazar(nuevo);
+
+        assertThat(nuevo.getTicketPadreId()).isEqualTo(1L);
+        // no se enruta por separado: hereda el agente del original
+        assertThat(nuevo.getAsignadoA()).isEqualTo("ana");
+    }
+
+    @Test
+    void testLosDuplicadosCuelganDeLaRaiz() {
+        Ticket primero = guardado(1L, "No puedo entrar a la plataforma", "Error al iniciar sesion", null);
+        detector.indexar(primero);
+        Ticket segundo = nuevo("No puedo entrar a la plataforma", "Error al iniciar sesion");
+        detector.enlazar(segundo);
+        segundo.setId(2L);
+        detector.indexar(segundo);
+        // el original se cierra; el siguiente duplicado coincide con el segundo pero cuelga del primero
+        detector.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.TRANSICION, primero,
+            primero.toBuilder().estadoTicket(EstadoTicket.CERRADO).build()));
+
+        Ticket tercero = nuevo("No puedo entrar a la plataforma", "Error al iniciar sesion.");
+        detector.enlazar(tercero);
+
+        assertThat(tercero.getTicketPadreId()).isEqualTo(1L);
+    }
+
+    @Test
+    void testNoEnlazaTextosDistintosNiOtraCategoria() {
+        detector.indexar(guardado(1L, "No puedo entrar a la plataforma", "Error al iniciar sesion", null));
+
+        Ticket distinto = nuevo("La impresora del aula 3 no imprime", "Sale una hoja en blanco");
+        detector.enlazar(distinto);
+        Ticket otraCategoria = nuevo("No puedo entrar a la plataforma", "Error al iniciar sesion");
+        otraCategoria.setCategoriaTicket(CategoriaTicket.HARDWARE);
+        detector.enlazar(otraCategoria);
+
+        assertThat(distinto.getTicketPadreId()).isNull();
+        assertThat(otraCategoria.getTicketPadreId()).isNull();
+    }
+
+    @Test
+    void testCaducaYSaleAlCerrarse() {
+        Ticket antiguo = guardado(1L, "No puedo entrar a la plataforma", "Error al iniciar sesion", null);
+        antiguo.setCreadoEn(Instant.now().minus(Duration.ofHours(3)));
+        detector.indexar(antiguo);
+        Ticket reciente = guardado(2L, "Sin acceso al aula virtual", "El curso no carga", null);
+        detector.indexar(reciente);
+        assertThat(detector.tamano()).isEqualTo(1);
+
+        Ticket cerrado = reciente.toBuilder().estadoTicket(EstadoTicket.CERRADO).build();
+        detector.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.TRANSICION, reciente, cerrado));
+        Ticket nuevo = nuevo("Sin acceso al aula virtual", "El curso no carga");
+        detector.enlazar(nuevo);
+
+        assertThat(detector.tamano()).isZero();
+        assertThat(nuevo.getTicketPadreId()).isNull();
+    }
+
+    @Test
+    void testEnLaTransaccionSoloEnlazaElla() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            detector.indexar(guardado(1L, "No puedo entrar a la plataforma", "Error al iniciar sesion", "ana"));
+            // p. ej. el siguiente ticket del mismo bloque de /lote
+            Ticket mismoBloque = nuevo("No puedo entrar a la plataforma", "Error al iniciar sesion");
+            detector.enlazar(mismoBloque);
+
+            assertThat(mismoBloque.getTicketPadreId()).isEqualTo(1L);
+            assertThat(mismoBloque.getAsignadoA()).isEqualTo("ana");
+            // sin confirmar no se ofrece como padre fuera de la transaccion
+            assertThat(detector.tamano()).isZero();
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(detector.tamano()).isEqualTo(1);
+    }
+
+    @Test
+    void testNoLlegaAlIndiceSiLaCreacionHaceRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            detector.indexar(guardado(1L, "No puedo entrar a la plataforma", "Error al iniciar sesion", null));
+
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Ticket nuevo = nuevo("No puedo entrar a la plataforma", "Error al iniciar sesion");
+        detector.enlazar(nuevo);
+
+        assertThat(detector.tamano()).isZero();
+        assertThat(nuevo.getTicketPadreId()).isNull();
+    }
+
+    @Test
+    void testReconstruyeConLosAbiertosRecientes() {
+        when(ticketRepository.buscarAbiertosDesde(any(), any())).thenReturn(List.of(
+            guardado(1L, "No puedo entrar a la plataforma", "Error al iniciar sesion", "ana"),
+            guardado(2L, "Sin acceso al aula virtual", "El curso no carga", "luis")));
+
+        detector.reconstruir();
+
+        assertThat(detector.tamano()).isEqualTo(2);
+    }
+
+    @Test
+    void testCoincidenciasEstimanJaccard() {
+        long[] a = DetectorDuplicados.minhash(nuevo("No puedo entrar a la plataforma", "desde ayer"));
+        long[] b = DetectorDuplicados.minhash(nuevo("No puedo entrar a la plataforma", "desde hoy"));
+        long[] c = DetectorDuplicados.minhash(nuevo("Cambio de toner", "impresora de secretaria"));
+
+        assertThat(DetectorDuplicados.coincidencias(a, a)).isEqualTo(DetectorDuplicados.FUNCIONES);
+        assertThat(DetectorDuplicados.coincidencias(a, b)).isGreaterThan(DetectorDuplicados.FUNCIONES / 2);
+        assertThat(DetectorDuplicados.coincidencias(a, c)).isLessThan(DetectorDuplicados.FUNCIONES / 8);
+    }
+
+    private static Ticket nuevo(String titulo, String descripcion) {
+        return Ticket.builder()
+            .titulo(titulo)
+            .descripcionTicket(descripcion)
+            .categoriaTicket(CategoriaTicket.ACCESO)
+            .creadoPor("Admin")
+            .creadoEn(Instant.now())
+            .build();
+    }
+
+    private static Ticket guardado(Long id, String titulo, String descripcion, String asignadoA) {
+        return nuevo(titulo, descripcion).toBuilder()
+            .id(id)
+            .estadoTicket(EstadoTicket.ABIERTO)
+            .asignadoA(asignadoA)
+            .build();
+    }
+}
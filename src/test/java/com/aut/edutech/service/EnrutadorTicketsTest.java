@@ -0,0 +1,176 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class EnrutadorTicketsTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    private EnrutadorTickets enrutador;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testMenosCargadoEquilibraLaCarga() {
+        iniciar(PropiedadesEnrutamiento.Estrategia.MENOS_CARGADO);
+        when(ticketRepository.contarAbiertosPorAgente(any())).thenReturn(List.of(carga("ana", 2), carga("eva", 1)));
+        enrutador.reconciliar();
+
+        List<String> asignados = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            asignados.add(enrutar(CategoriaTicket.SOFTWARE));
+        }
+
+        assertThat(asignados.subList(0, 2)).containsOnly("luis");
+        assertThat(enrutador.cargas()).isEqualTo(Map.of("ana", 3, "luis", 3, "eva", 3));
+    }
+
+    @Test
+    void testRoundRobinRota() {
+        iniciar(PropiedadesEnrutamiento.Estrategia.ROUND_ROBIN);
+
+        assertThat(List.of(enrutar(CategoriaTicket.SOFTWARE), enrutar(CategoriaTicket.SOFTWARE),
+                enrutar(CategoriaTicket.SOFTWARE), enrutar(CategoriaTicket.SOFTWARE)))
+            .containsExactly("ana", "luis", "eva", "ana");
+    }
+
+    @Test
+    void testSinPoolOAsignadoNoSeEnruta() {
+        iniciar(PropiedadesEnrutamiento.Estrategia.MENOS_CARGADO);
+
+        assertThat(enrutar(CategoriaTicket.OTRO)).isNull();
+        Ticket manual = Ticket.builder().categoriaTicket(CategoriaTicket.SOFTWARE).asignadoA("eva").build();
+        enrutador.enrutar(manual);
+
+        assertThat(manual.getAsignadoA()).isEqualTo("eva");
+        // la asignacion manual tambien cuenta como carga
+        assertThat(enrutador.cargas()).containsEntry("eva", 1);
+    }
+
+    @Test
+    void testEventosConfirmadosAjustanLaCarga() {
+        iniciar(PropiedadesEnrutamiento.Estrategia.MENOS_CARGADO);
+        Ticket ticket = Ticket.builder().id(1L).categoriaTicket(CategoriaTicket.RED)
+            .estadoTicket(EstadoTicket.ABIERTO).build();
+        enrutador.enrutar(ticket);
+        assertThat(ticket.getAsignadoA()).isEqualTo("eva");
+
+        Ticket cerrado = ticket.toBuilder().estadoTicket(EstadoTicket.CERRADO).build();
+        enrutador.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.CREADO, null, ticket));
+        assertThat(enrutador.cargas()).containsEntry("eva", 1);
+        enrutador.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.ACTUALIZADO, ticket, cerrado));
+        assertThat(enrutador.cargas()).containsEntry("eva", 0);
+
+    }
+
+    @Test
+    void testRollbackDevuelveLasReservasDeLaTransaccion() {
+        iniciar(PropiedadesEnrutamiento.Estrategia.MENOS_CARGADO);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // p. ej. un bloque de /lote: uno enrutado y uno con agente propio; save falla antes de publicar nada
+            enrutador.enrutar(Ticket.builder().categoriaTicket(CategoriaTicket.RED).build());
+            enrutador.enrutar(Ticket.builder().categoriaTicket(CategoriaTicket.SOFTWARE).asignadoA("ana").build());
+            assertThat(enrutador.cargas()).containsEntry("eva", 1).containsEntry("ana", 1);
+
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(enrutador.cargas()).isEqualTo(Map.of("ana", 0, "luis", 0, "eva", 0));
+    }
+
+    @Test
+    void testCommitConservaLasReservas() {
+        iniciar(PropiedadesEnrutamiento.Estrategia.MENOS_CARGADO);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            enrutador.enrutar(Ticket.builder().categoriaTicket(CategoriaTicket.RED).build());
+
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(enrutador.cargas()).containsEntry("eva", 1);
+    }
+
+    @Test
+    void testEnrutadoConcurrenteNoPierdeReservas() throws Exception {
+        iniciar(PropiedadesEnrutamiento.Estrategia.MENOS_CARGADO);
+        int hilos = 8;
+        int porHilo = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                tareas.add(executor.submit(() -> {
+                    for (int i = 0; i < porHilo; i++) {
+                        enrutar(CategoriaTicket.SOFTWARE);
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<String, Integer> cargas = enrutador.cargas();
+        assertThat(cargas.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(hilos * porHilo);
+        int maxima = cargas.values().stream().mapToInt(Integer::intValue).max().orElseThrow();
+        int minima = cargas.values().stream().mapToInt(Integer::intValue).min().orElseThrow();
+        assertThat(maxima - minima).isLessThanOrEqualTo(hilos);
+    }
+
+    private void iniciar(PropiedadesEnrutamiento.Estrategia estrategia) {
+        enrutador = new EnrutadorTickets();
+        ReflectionTestUtils.setField(enrutador, "ticketRepository", ticketRepository);
+        ReflectionTestUtils.setField(enrutador, "propiedades", new PropiedadesEnrutamiento(estrategia, Map.of(
+            CategoriaTicket.SOFTWARE, List.of("ana", "luis", "eva"),
+            CategoriaTicket.RED, List.of("eva"))));
+        ReflectionTestUtils.invokeMethod(enrutador, "iniciar");
+    }
+
+    private String enrutar(CategoriaTicket categoria) {
+        Ticket ticket = Ticket.builder().categoriaTicket(categoria).build();
+        enrutador.enrutar(ticket);
+        return ticket.getAsignadoA();
+    }
+
+    private static TicketRepository.CargaAgente carga(String agente, long total) {
+        return new TicketRepository.CargaAgente() {
+            public String getAgente() { return agente; }
+            public long getTotal() { return total; }
+        };
+    }
+}
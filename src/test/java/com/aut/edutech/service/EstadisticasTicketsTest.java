@@ -0,0 +1,89 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class EstadisticasTicketsTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @InjectMocks
+    private EstadisticasTickets estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(ticketRepository.contarPorEstadoYCategoria()).thenReturn(List.of(
+            conteo(EstadoTicket.ABIERTO, CategoriaTicket.SOFTWARE, 3),
+            conteo(EstadoTicket.CERRADO, CategoriaTicket.HARDWARE, 2)));
+        when(ticketRepository.contarAbiertosPorAgente(any())).thenReturn(List.of(carga("Usuario1", 3)));
+        estadisticas.reconciliar();
+    }
+
+    @Test
+    void testResumenSembradoDesdeLaBaseDeDatos() {
+        ResumenEstadisticas resumen = estadisticas.resumen();
+
+        assertThat(resumen.total()).isEqualTo(5);
+        assertThat(resumen.porEstadoYCategoria()).containsExactly(
+            new ResumenEstadisticas.Conteo(EstadoTicket.ABIERTO, CategoriaTicket.SOFTWARE, 3),
+            new ResumenEstadisticas.Conteo(EstadoTicket.CERRADO, CategoriaTicket.HARDWARE, 2));
+        assertThat(resumen.abiertosPorAgente()).isEqualTo(Map.of("Usuario1", 3L));
+        assertThat(resumen.reconciliadoEn()).isNotNull();
+    }
+
+    @Test
+    void testEventosAjustanLosContadores() {
+        Ticket anterior = ticket(EstadoTicket.ABIERTO, "Usuario1");
+        Ticket cerrado = ticket(EstadoTicket.CERRADO, "Usuario1");
+        estadisticas.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.ACTUALIZADO, anterior, cerrado));
+        estadisticas.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.CREADO, null, ticket(null, "Usuario2")));
+
+        ResumenEstadisticas resumen = estadisticas.resumen();
+
+        assertThat(resumen.total()).isEqualTo(6);
+        assertThat(resumen.porEstadoYCategoria()).containsExactly(
+            new ResumenEstadisticas.Conteo(null, CategoriaTicket.SOFTWARE, 1),
+            new ResumenEstadisticas.Conteo(EstadoTicket.ABIERTO, CategoriaTicket.SOFTWARE, 2),
+            new ResumenEstadisticas.Conteo(EstadoTicket.CERRADO, CategoriaTicket.SOFTWARE, 1),
+            new ResumenEstadisticas.Conteo(EstadoTicket.CERRADO, CategoriaTicket.HARDWARE, 2));
+        assertThat(resumen.abiertosPorAgente()).isEqualTo(Map.of("Usuario1", 2L, "Usuario2", 1L));
+    }
+
+    private static Ticket ticket(EstadoTicket estado, String asignadoA) {
+        return Ticket.builder().id(1L).estadoTicket(estado)
+            .categoriaTicket(CategoriaTicket.SOFTWARE).asignadoA(asignadoA).build();
+    }
+
+    private static TicketRepository.ConteoEstadoCategoria conteo(EstadoTicket estado, CategoriaTicket categoria,
+            long total) {
+        return new TicketRepository.ConteoEstadoCategoria() {
+            public EstadoTicket getEstado() { return estado; }
+            public CategoriaTicket getCategoria() { return categoria; }
+            public long getTotal() { return total; }
+        };
+    }
+
+    private static TicketRepository.CargaAgente carga(String agente, long total) {
+        return new TicketRepository.CargaAgente() {
+            public String getAgente() { return agente; }
+            public long getTotal() { return total; }
+        };
+    }
+}
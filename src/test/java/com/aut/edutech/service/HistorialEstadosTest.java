@@ -0,0 +1,102 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.model.TransicionTicket;
+import com.aut.edutech.repository.TicketRepository;
+import com.aut.edutech.repository.TransicionTicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class HistorialEstadosTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private HistorialEstados historialEstados;
+
+    @Autowired
+    private TransicionTicketRepository transicionRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @BeforeEach
+    void setUp() {
+        transicionRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testCadaCambioDeEstadoQuedaEnElHistorial() {
+        Ticket ticket = ticketService.crearTicket(Ticket.builder().titulo("Historial")
+            .descripcionTicket("Prueba").estadoTicket(EstadoTicket.ABIERTO).creadoPor("Admin").build());
+        ticketService.transicionarTicket(ticket.getId(), EstadoTicket.PROGRESO, null);
+        // asignar no cambia el estado, no deja fila
+        ticketService.asignarTicket(ticket.getId(), "Usuario1", null);
+        ticketService.transicionarTicket(ticket.getId(), EstadoTicket.FINALIZADO, null);
+
+        List<TransicionTicket> historial = historialEstados.historial(ticket.getId());
+
+        assertThat(historial).extracting(TransicionTicket::getEstadoDestino)
+            .containsExactly(EstadoTicket.ABIERTO, EstadoTicket.PROGRESO, EstadoTicket.FINALIZADO);
+        assertThat(historial.get(0).getEstadoOrigen()).isNull();
+        assertThat(historial.get(2).getEstadoOrigen()).isEqualTo(EstadoTicket.PROGRESO);
+        assertThat(historial.get(2).getSegundosEnOrigen()).isNotNull();
+    }
+
+    @Test
+    void testAsignarUnTicketAbiertoLoPasaAAsignado() {
+        Ticket ticket = ticketService.crearTicket(Ticket.builder().titulo("Sin agente")
+            .descripcionTicket("Prueba").estadoTicket(EstadoTicket.ABIERTO).creadoPor("Admin").build());
+
+        Ticket asignado = ticketService.asignarTicket(ticket.getId(), "Usuario1", null);
+
+        assertThat(asignado.getEstadoTicket()).isEqualTo(EstadoTicket.ASIGNADO);
+        // lo escribe el propio UPDATE de la asignacion
+        assertThat(ticketRepository.findById(ticket.getId())).get()
+            .extracting(Ticket::getEstadoTicket).isEqualTo(EstadoTicket.ASIGNADO);
+        assertThat(historialEstados.historial(ticket.getId())).extracting(TransicionTicket::getEstadoDestino)
+            .containsExactly(EstadoTicket.ABIERTO, EstadoTicket.ASIGNADO);
+    }
+
+    @Test
+    void testResumenPorEstado() {
+        Instant ahora = Instant.now();
+        transicionRepository.saveAll(List.of(
+            transicion(1L, null, EstadoTicket.ABIERTO, ahora, null),
+            transicion(1L, EstadoTicket.ABIERTO, EstadoTicket.PROGRESO, ahora, 60L),
+            transicion(2L, EstadoTicket.ABIERTO, EstadoTicket.PROGRESO, ahora, 180L),
+            // fuera de la ventana
+            transicion(3L, EstadoTicket.ABIERTO, EstadoTicket.CANCELADO, ahora.minus(Duration.ofDays(30)), 5L)));
+
+        List<HistorialEstados.ResumenEstado> resumen =
+            historialEstados.resumen(ahora.minus(Duration.ofDays(1)), ahora.plusSeconds(1));
+
+        HistorialEstados.ResumenEstado abierto = resumen.stream()
+            .filter(r -> r.estado() == EstadoTicket.ABIERTO).findFirst().orElseThrow();
+        assertThat(abierto.entradas()).isEqualTo(1);
+        assertThat(abierto.salidas()).isEqualTo(2);
+        assertThat(abierto.mediaSegundosEnEstado()).isEqualTo(120.0);
+        assertThat(abierto.maximoSegundosEnEstado()).isEqualTo(180L);
+        assertThat(resumen.stream().filter(r -> r.estado() == EstadoTicket.PROGRESO).findFirst().orElseThrow()
+            .entradas()).isEqualTo(2);
+        assertThat(resumen.stream().filter(r -> r.estado() == EstadoTicket.CANCELADO).findFirst().orElseThrow()
+            .entradas()).isZero();
+    }
+
+    private static TransicionTicket transicion(Long ticketId, EstadoTicket origen, EstadoTicket destino,
+            Instant fecha, Long segundos) {
+        return TransicionTicket.builder().ticketId(ticketId).estadoOrigen(origen).estadoDestino(destino)
+            .fecha(fecha).segundosEnOrigen(segundos).build();
+    }
+}
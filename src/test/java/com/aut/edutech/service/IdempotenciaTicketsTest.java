@@ -0,0 +1,137 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.config.CacheConfig;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.ClaveIdempotenciaRepository;
+import com.aut.edutech.repository.TicketRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+public class IdempotenciaTicketsTest {
+
+    @Autowired
+    private IdempotenciaTickets idempotencia;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        olvidarCache();
+        claveRepository.deleteAllInBatch();
+        ticketRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(idempotencia, "ttl", Duration.ofHours(24));
+    }
+
+    @Test
+    void testReintentosConcurrentesCreanUnSoloTicket() throws Exception {
+        int reintentos = 8;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(reintentos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<CreacionIdempotente>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < reintentos; i++) {
+                resultados.add(ejecutor.submit(() -> {
+                    salida.await();
+                    return idempotencia.crearTicket("movil-1", nuevoTicket("Sin acceso"));
+                }));
+            }
+            salida.countDown();
+            List<CreacionIdempotente> creaciones = new ArrayList<>();
+            for (Future<CreacionIdempotente> resultado : resultados) {
+                creaciones.add(resultado.get());
+            }
+
+            assertThat(ticketRepository.count()).isEqualTo(1);
+            assertThat(creaciones).extracting(c -> c.ticket().getId()).containsOnly(creaciones.get(0).ticket().getId());
+            assertThat(creaciones).filteredOn(c -> !c.repetida()).hasSize(1);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSinCacheRespondeDesdeLaTabla() {
+        Ticket original = idempotencia.crearTicket("movil-2", nuevoTicket("Sin acceso")).ticket();
+        olvidarCache();
+
+        CreacionIdempotente repetida = idempotencia.crearTicket("movil-2", nuevoTicket("Sin acceso"));
+
+        assertThat(repetida.repetida()).isTrue();
+        assertThat(repetida.ticket().getId()).isEqualTo(original.getId());
+        assertThat(ticketRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testMismaClaveConOtroCuerpo() {
+        idempotencia.crearTicket("movil-3", nuevoTicket("Sin acceso"));
+
+        assertThatThrownBy(() -> idempotencia.crearTicket("movil-3", nuevoTicket("Otra cosa")))
+            .isInstanceOf(ConflictoIdempotenciaException.class);
+        olvidarCache();
+        assertThatThrownBy(() -> idempotencia.crearTicket("movil-3", nuevoTicket("Otra cosa")))
+            .isInstanceOf(ConflictoIdempotenciaException.class);
+        assertThat(ticketRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testTicketEliminadoNoEsUnConflicto() {
+        idempotencia.crearTicket("movil-5", nuevoTicket("Sin acceso"));
+        ticketRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.TICKETS).clear();
+
+        assertThatThrownBy(() -> idempotencia.crearTicket("movil-5", nuevoTicket("Sin acceso")))
+            .isInstanceOf(TicketEliminadoException.class);
+    }
+
+    @Test
+    void testPurgaLasClavesCaducadas() {
+        idempotencia.crearTicket("movil-4", nuevoTicket("Sin acceso"));
+        ReflectionTestUtils.setField(idempotencia, "ttl", Duration.ofMinutes(-1));
+
+        assertThat(idempotencia.purgar()).isEqualTo(1);
+        assertThat(claveRepository.count()).isZero();
+    }
+
+    private void olvidarCache() {
+        ((Cache<?, ?>) ReflectionTestUtils.getField(idempotencia, "creaciones")).invalidateAll();
+    }
+
+    private static Ticket nuevoTicket(String titulo) {
+        return Ticket.builder()
+            .titulo(titulo)
+            .descripcionTicket("No puedo entrar")
+            .categoriaTicket(CategoriaTicket.ACCESO)
+            .creadoPor("movil")
+            .build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.evento.SlaEvento;
+import com.aut.edutech.evento.TicketEvento;
+import com.aut.edutech.model.CategoriaTicket;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.repository.TicketRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class MonitorSlaTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventos;
+
+    private MonitorSla monitor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        monitor = new MonitorSla();
+        ReflectionTestUtils.setField(monitor, "ticketRepository", ticketRepository);
+        ReflectionTestUtils.setField(monitor, "eventos", eventos);
+        ReflectionTestUtils.setField(monitor, "registro", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(monitor, "propiedades", new PropiedadesSla(Duration.ofHours(24),
+            Duration.ofHours(4), Map.of(CategoriaTicket.ACCESO,
+                new PropiedadesSla.Politica(Duration.ofHours(4), Duration.ofHours(1)))));
+    }
+
+    @Test
+    void testAvisoEIncumplimientoSegunLaPoliticaDeLaCategoria() {
+        Instant ahora = Instant.now();
+        // ACCESO: 4h de plazo, aviso 1h antes; a las 3.5h solo toca avisar
+        crear(1L, CategoriaTicket.ACCESO, ahora.minus(Duration.ofMinutes(210)));
+        // SOFTWARE usa la politica general (24h) y ya la supero
+        crear(2L, CategoriaTicket.SOFTWARE, ahora.minus(Duration.ofHours(25)));
+        // recien creado: nada que notificar
+        crear(3L, CategoriaTicket.SOFTWARE, ahora);
+
+        monitor.comprobar();
+
+        ArgumentCaptor<SlaEvento> disparados = ArgumentCaptor.forClass(SlaEvento.class);
+        verify(eventos, times(3)).publishEvent(disparados.capture());
+        assertThat(disparados.getAllValues()).extracting(SlaEvento::ticketId, SlaEvento::tipo).containsExactly(
+            tuple(2L, SlaEvento.Tipo.AVISO),
+            tuple(2L, SlaEvento.Tipo.INCUMPLIMIENTO),
+            tuple(1L, SlaEvento.Tipo.AVISO));
+
+        // cada alarma se dispara una sola vez
+        monitor.comprobar();
+        verify(eventos, times(3)).publishEvent(any(SlaEvento.class));
+    }
+
+    @Test
+    void testActualizarUnTicketIncumplidoNoRenotifica() {
+        Ticket ticket = crear(1L, CategoriaTicket.SOFTWARE, Instant.now().minus(Duration.ofHours(25)));
+        monitor.comprobar();
+        verify(eventos, times(2)).publishEvent(any(SlaEvento.class));
+
+        // reasignar no cambia el plazo: el aviso y el incumplimiento ya se notificaron
+        monitor.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.ASIGNADO, ticket,
+            ticket.toBuilder().asignadoA("soporte1").build()));
+        monitor.comprobar();
+
+        verify(eventos, times(2)).publishEvent(any(SlaEvento.class));
+        assertThat(monitor.enRiesgo(Duration.ZERO, 10)).extracting(MonitorSla.RiesgoSla::asignadoA)
+            .containsExactly("soporte1");
+    }
+
+    @Test
+    void testRecategorizarDisparaElNuevoIncumplimiento() {
+        // SOFTWARE (24h) a las 5h no tiene alarmas vencidas; como ACCESO (4h) ya esta incumplido
+        Ticket ticket = crear(1L, CategoriaTicket.SOFTWARE, Instant.now().minus(Duration.ofHours(5)));
+        monitor.comprobar();
+        verifyNoInteractions(eventos);
+
+        monitor.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.CATEGORIZADO, ticket,
+            ticket.toBuilder().categoriaTicket(CategoriaTicket.ACCESO).build()));
+        monitor.comprobar();
+
+        verify(eventos, times(2)).publishEvent(any(SlaEvento.class));
+    }
+
+    @Test
+    void testResolverQuitaElTicket() {
+        Ticket ticket = crear(1L, CategoriaTicket.SOFTWARE, Instant.now().minus(Duration.ofHours(25)));
+        Ticket resuelto = ticket.toBuilder().estadoTicket(EstadoTicket.CERRADO).resueltoEn(Instant.now()).build();
+        monitor.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.TRANSICION, ticket, resuelto));
+
+        monitor.comprobar();
+
+        verifyNoInteractions(eventos);
+        assertThat(monitor.enRiesgo(Duration.ofDays(2), 10)).isEmpty();
+    }
+
+    @Test
+    void testEnRiesgoOrdenadoPorVencimiento() {
+        Instant ahora = Instant.now();
+        crear(1L, CategoriaTicket.SOFTWARE, ahora.minus(Duration.ofHours(23)));
+        crear(2L, CategoriaTicket.SOFTWARE, ahora.minus(Duration.ofHours(30)));
+        crear(3L, CategoriaTicket.SOFTWARE, ahora);
+        // recategorizar a ACCESO acorta el plazo a 4h desde la creacion
+        Ticket acceso = crear(4L, CategoriaTicket.SOFTWARE, ahora.minus(Duration.ofMinutes(210)));
+        monitor.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.CATEGORIZADO, acceso,
+            acceso.toBuilder().categoriaTicket(CategoriaTicket.ACCESO).build()));
+
+        List<MonitorSla.RiesgoSla> riesgo = monitor.enRiesgo(Duration.ofHours(2), 10);
+
+        assertThat(riesgo).extracting(MonitorSla.RiesgoSla::ticketId).containsExactly(2L, 4L, 1L);
+        assertThat(riesgo.get(0).segundosRestantes()).isNegative();
+        assertThat(monitor.enRiesgo(Duration.ZERO, 10)).extracting(MonitorSla.RiesgoSla::ticketId).containsExactly(2L);
+    }
+
+    @Test
+    void testReconstruirNoRenotificaLoYaVencido() {
+        TicketRepository.PendienteSla pendiente = mock(TicketRepository.PendienteSla.class);
+        when(pendiente.getId()).thenReturn(7L);
+        when(pendiente.getCategoria()).thenReturn(CategoriaTicket.SOFTWARE);
+        when(pendiente.getCreadoEn()).thenReturn(Instant.now().minus(Duration.ofHours(30)));
+        when(ticketRepository.buscarPendientesSla(any())).thenReturn(List.of(pendiente));
+
+        monitor.reconstruir();
+        monitor.comprobar();
+
+        verifyNoInteractions(eventos);
+        assertThat(monitor.enRiesgo(Duration.ZERO, 10)).extracting(MonitorSla.RiesgoSla::ticketId).containsExactly(7L);
+    }
+
+    private Ticket crear(Long id, CategoriaTicket categoria, Instant creadoEn) {
+        Ticket ticket = Ticket.builder().id(id).categoriaTicket(categoria).estadoTicket(EstadoTicket.ABIERTO)
+            .creadoEn(creadoEn).build();
+        monitor.alCambiarTicket(new TicketEvento(TicketEvento.Tipo.CREADO, null, ticket));
+        return ticket;
+    }
+}
@@ -0,0 +1,116 @@
+package com.aut.edutech.service;
+
+import com.aut.edutech.config.CacheConfig;
+import com.aut.edutech.model.EstadoTicket;
+import com.aut.edutech.model.Ticket;
+import com.aut.edutech.replica.ContextoLectura;
+import com.aut.edutech.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class TicketServiceCacheTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private TicketRepository ticketRepository;
+
+    private Ticket ticket;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.TICKETS).clear();
+
+        ticket = new Ticket();
+        ticket.setId(1L);
+        ticket.setTitulo("Ticket 1");
+        ticket.setDescripcionTicket("Descripción del ticket 1");
+        ticket.setEstadoTicket(EstadoTicket.ABIERTO);
+        ticket.setCreadoPor("Admin");
+        ticket.setVersion(0L);
+    }
+
+    @Test
+    void testLecturaRepetidaSeSirveDesdeCache() {
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+
+        ticketService.obtenerTicketPorId(1L);
+        Optional<Ticket> resultado = ticketService.obtenerTicketPorId(1L);
+
+        assertThat(resultado).contains(ticket);
+        verify(ticketRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testSeCacheaUnaCopiaDeLaEntidad() {
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+
+        ticketService.obtenerTicketPorId(1L);
+        Ticket cacheado = cacheManager.getCache(CacheConfig.TICKETS).get(1L, Ticket.class);
+
+        assertThat(cacheado).isEqualTo(ticket).isNotSameAs(ticket);
+        // cambiar la entidad despues no altera la entrada
+        ticket.setTitulo("Cambiado");
+        assertThat(ticketService.obtenerTicketPorId(1L)).get()
+            .extracting(Ticket::getTitulo).isEqualTo("Ticket 1");
+    }
+
+    @Test
+    void testAusenciaNoSeCachea() {
+        when(ticketRepository.findById(2L)).thenReturn(Optional.empty());
+
+        ticketService.obtenerTicketPorId(2L);
+        ticketService.obtenerTicketPorId(2L);
+
+        verify(ticketRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void testLecturaDeReplicaNoSeCachea() {
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+
+        ContextoLectura.usarReplicas();
+        try {
+            ticketService.obtenerTicketPorId(1L);
+            ticketService.obtenerTicketPorId(1L);
+        } finally {
+            ContextoLectura.limpiar();
+        }
+
+        verify(ticketRepository, times(2)).findById(1L);
+        assertThat(cacheManager.getCache(CacheConfig.TICKETS).get(1L)).isNull();
+    }
+
+    @Test
+    void testAsignarRefrescaLaEntrada() {
+        // cada transaccion lee su propia instancia; la segunda lectura es la fila tras el UPDATE
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket),
+            Optional.of(ticket.toBuilder().asignadoA("Usuario2").estadoTicket(EstadoTicket.ASIGNADO).version(1L).build()));
+        when(ticketRepository.actualizarAsignadoA(eq(1L), eq("Usuario2"), isNull(), any(Instant.class))).thenReturn(1);
+
+        ticketService.obtenerTicketPorId(1L);
+        Ticket asignado = ticketService.asignarTicket(1L, "Usuario2", null);
+        Optional<Ticket> resultado = ticketService.obtenerTicketPorId(1L);
+
+        assertThat(resultado).containsSame(asignado);
+        assertThat(asignado.getAsignadoA()).isEqualTo("Usuario2");
+        assertThat(asignado.getVersion()).isEqualTo(1L);
+        // la lectura posterior no vuelve a la base de datos
+        verify(ticketRepository, times(2)).findById(1L);
+    }
+}
@@ -1,28 +1,78 @@
 package com.aut.edutech.service;
 
+import com.aut.edutech.config.CacheConfig;
+import com.aut.edutech.evento.TicketEvento;
 import com.aut.edutech.model.CategoriaTicket;
 import com.aut.edutech.model.EstadoTicket;
 import com.aut.edutech.model.Ticket;
+import com.aut.edutech.model.TicketArchivado;
+import com.aut.edutech.repository.TicketArchivadoRepository;
 import com.aut.edutech.repository.TicketRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.mockito.Spy;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TicketServiceTest {
 
     @Mock
     private TicketRepository ticketRepository;
 
+    @Mock
+    private TicketArchivadoRepository archivadoRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.TICKETS);
+
+    @Mock
+    private ApplicationEventPublisher eventos;
+
+    @Mock
+    private EnrutadorTickets enrutador;
+
+    @Mock
+    private DetectorDuplicados detectorDuplicados;
+
     @InjectMocks
     private TicketService ticketService;
 
@@ -64,9 +114,56 @@ public class TicketServiceTest {
 
         assertThat(resultado).isNotNull();
         assertThat(resultado.getTitulo()).isEqualTo(ticket.getTitulo());
+        // llega con agente, asi que no se queda ABIERTO
+        assertThat(resultado.getEstadoTicket()).isEqualTo(EstadoTicket.ASIGNADO);
         verify(ticketRepository, times(1)).save(ticket);
     }
 
+    @Test
+    void testCrearTicketsEnLotesDeTamanoConfigurado() {
+        ReflectionTestUtils.setField(ticketService, "tamanoLote", 2);
+        when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        Ticket otro = ticket.toBuilder().build();
+        otro.setId(7L);
+        int creados = ticketService.crearTickets(List.of(ticket, ticketActualizado, otro).iterator());
+
+        assertThat(creados).isEqualTo(3);
+        // 2 + 1: un bloque completo y el resto
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(ticketRepository, times(3)).save(any(Ticket.class));
+        verify(entityManager, times(2)).clear();
+        // los ids los asigna la secuencia, no el cliente
+        assertThat(otro.getId()).isNull();
+    }
+
+    @Test
+    void testCrearTicketsInformaDeLosCreadosAntesDelElementoInvalido() {
+        ReflectionTestUtils.setField(ticketService, "tamanoLote", 2);
+        when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        Ticket sinTitulo = new Ticket();
+        sinTitulo.setDescripcionTicket("Sin titulo");
+        sinTitulo.setCreadoPor("Admin");
+        Ticket otro = ticket.toBuilder().build();
+
+        assertThatThrownBy(() -> ticketService.crearTickets(
+                List.of(ticket, ticketActualizado, otro, sinTitulo).iterator()))
+            .isInstanceOf(ImportacionInterrumpidaException.class)
+            .hasCauseInstanceOf(SolicitudInvalidaException.class)
+            .extracting("creados").isEqualTo(2);
+        // solo el primer bloque llega a guardarse; el tercero se descarta con el invalido
+        verify(ticketRepository, times(2)).save(any(Ticket.class));
+    }
+
     @Test
     void testObtenerTodosLosTickets() {
         when(ticketRepository.findAll()).thenReturn(Arrays.asList(ticket));
@@ -79,6 +176,40 @@ public class TicketServiceTest {
         verify(ticketRepository, times(1)).findAll();
     }
 
+    @Test
+    void testObtenerTicketsDesdeCursor() {
+        when(ticketRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(20))).thenReturn(Arrays.asList(ticket));
+
+        List<Ticket> resultado = ticketService.obtenerTicketsDesde(null, 20);
+
+        assertThat(resultado).containsExactly(ticket);
+        verify(ticketRepository, never()).findAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBuscarTicketsUsaConsultaFiltradaYNoFindAll() {
+        when(ticketRepository.findBy(any(Specification.class), any(Function.class))).thenReturn(Arrays.asList(ticket));
+
+        List<Ticket> resultado = ticketService.buscarTickets(
+            EstadoTicket.ABIERTO, CategoriaTicket.SOFTWARE, "Usuario1", null, null, 50);
+
+        assertThat(resultado).containsExactly(ticket);
+        verify(ticketRepository, never()).findAll();
+    }
+
+    @Test
+    void testExportarTicketsLiberaCadaEntidad() {
+        when(ticketRepository.streamTodosOrdenadosPorId()).thenReturn(Stream.of(ticket, ticketActualizado));
+
+        List<Ticket> exportados = new ArrayList<>();
+        ticketService.exportarTickets(exportados::add);
+
+        assertThat(exportados).containsExactly(ticket, ticketActualizado);
+        verify(entityManager).detach(ticket);
+        verify(entityManager).detach(ticketActualizado);
+    }
+
     @Test
     void testObtenerTicketPorId() {
         when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
@@ -88,6 +219,18 @@ public class TicketServiceTest {
         assertThat(resultado).isPresent();
         assertThat(resultado.get().getTitulo()).isEqualTo(ticket.getTitulo());
         verify(ticketRepository, times(1)).findById(1L);
+        verifyNoInteractions(archivadoRepository);
+    }
+
+    @Test
+    void testObtenerTicketPorIdDesdeElArchivo() {
+        ticket.setEstadoTicket(EstadoTicket.CERRADO);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.empty());
+        when(archivadoRepository.findById(1L)).thenReturn(Optional.of(TicketArchivado.de(ticket, Instant.now())));
+
+        Optional<Ticket> resultado = ticketService.obtenerTicketPorId(1L);
+
+        assertThat(resultado).contains(ticket);
     }
 
     @Test
@@ -95,7 +238,7 @@ public class TicketServiceTest {
         when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
         when(ticketRepository.save(ticket)).thenReturn(ticketActualizado);
 
-        Ticket resultado = ticketService.actualizarTicket(1L, ticketActualizado);
+        Ticket resultado = ticketService.actualizarTicket(1L, ticketActualizado, null);
 
         assertThat(resultado).isNotNull();
         assertThat(resultado.getTitulo()).isEqualTo(ticketActualizado.getTitulo());
@@ -106,28 +249,121 @@ public class TicketServiceTest {
 
     @Test
     void testAsignarTicket() {
-        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
-        when(ticketRepository.save(ticket)).thenReturn(ticket);
+        ticket.setVersion(4L);
+        cacheManager.getCache(CacheConfig.TICKETS).put(1L, ticket);
+        Ticket asignado = ticket.toBuilder().version(5L).asignadoA("Usuario2").estadoTicket(EstadoTicket.ASIGNADO)
+            .estadoDesde(Instant.now()).build();
+        when(ticketRepository.actualizarAsignadoA(eq(1L), eq("Usuario2"), isNull(), any(Instant.class))).thenReturn(1);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(asignado));
 
-        Ticket resultado = ticketService.asignarTicket(1L, "Usuario2");
+        Ticket resultado = ticketService.asignarTicket(1L, "Usuario2", null);
 
         assertThat(resultado).isNotNull();
         assertThat(resultado.getAsignadoA()).isEqualTo("Usuario2");
-        verify(ticketRepository, times(1)).findById(1L);
-        verify(ticketRepository, times(1)).save(ticket);
+        assertThat(resultado.getVersion()).isEqualTo(5L);
+        assertThat(resultado.getEstadoTicket()).isEqualTo(EstadoTicket.ASIGNADO);
+        // un unico UPDATE sin leer antes la fila; despues solo se relee el resultado
+        InOrder orden = inOrder(ticketRepository);
+        orden.verify(ticketRepository).actualizarAsignadoA(eq(1L), eq("Usuario2"), isNull(), any(Instant.class));
+        orden.verify(ticketRepository).findById(1L);
+        verify(ticketRepository, never()).save(any(Ticket.class));
+
+        // la cache tenia la version anterior, asi que el evento lleva el estado previo y el nuevo
+        ArgumentCaptor<TicketEvento> evento = ArgumentCaptor.forClass(TicketEvento.class);
+        verify(eventos).publishEvent(evento.capture());
+        assertThat(evento.getValue().tipo()).isEqualTo(TicketEvento.Tipo.ASIGNADO);
+        assertThat(evento.getValue().anterior().getAsignadoA()).isEqualTo("Usuario1");
+        assertThat(evento.getValue().actual().getAsignadoA()).isEqualTo("Usuario2");
+    }
+
+    @Test
+    void testAsignarTicketSinVersionAnteriorEnCache() {
+        // la cache guarda una version mas antigua: no se sabe que habia justo antes del UPDATE
+        ticket.setVersion(2L);
+        cacheManager.getCache(CacheConfig.TICKETS).put(1L, ticket);
+        Ticket asignado = ticket.toBuilder().version(5L).asignadoA("Usuario2").build();
+        when(ticketRepository.actualizarAsignadoA(eq(1L), eq("Usuario2"), isNull(), any(Instant.class))).thenReturn(1);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(asignado));
+
+        ticketService.asignarTicket(1L, "Usuario2", null);
+
+        ArgumentCaptor<TicketEvento> evento = ArgumentCaptor.forClass(TicketEvento.class);
+        verify(eventos).publishEvent(evento.capture());
+        assertThat(evento.getValue().anterior()).isNull();
+        assertThat(evento.getValue().anteriorConocido()).isFalse();
+        assertThat(evento.getValue().actual().getAsignadoA()).isEqualTo("Usuario2");
+    }
+
+    @Test
+    void testAsignarTicketNoExistente() {
+        when(ticketRepository.actualizarAsignadoA(eq(999L), eq("Usuario2"), isNull(), any(Instant.class)))
+            .thenReturn(0);
+
+        Ticket resultado = ticketService.asignarTicket(999L, "Usuario2", null);
+
+        assertThat(resultado).isNull();
+        verify(ticketRepository, never()).findById(999L);
+        verifyNoInteractions(eventos);
     }
 
     @Test
     void testCategorizarTicket() {
-        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
-        when(ticketRepository.save(ticket)).thenReturn(ticket);
+        ticket.setCategoriaTicket(CategoriaTicket.RED);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket.toBuilder().categoriaTicket(categoria).build()));
+        when(ticketRepository.actualizarCategoria(eq(1L), eq(categoria), isNull(), any(Instant.class))).thenReturn(1);
 
-        Ticket resultado = ticketService.categorizarTicket(1L, categoria);
+        Ticket resultado = ticketService.categorizarTicket(1L, categoria, null);
 
         assertThat(resultado).isNotNull();
         assertThat(resultado.getCategoriaTicket()).isEqualTo(categoria);
-        verify(ticketRepository, times(1)).findById(1L);
-        verify(ticketRepository, times(1)).save(ticket);
+        verify(ticketRepository, times(1)).actualizarCategoria(eq(1L), eq(categoria), isNull(), any(Instant.class));
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verify(eventos).publishEvent(any(TicketEvento.class));
+    }
+
+    @Test
+    void testCategorizarTicketModificadoConcurrentemente() {
+        when(ticketRepository.actualizarCategoria(eq(1L), eq(categoria), eq(4L), any(Instant.class))).thenReturn(0);
+        when(ticketRepository.existsById(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> ticketService.categorizarTicket(1L, categoria, 4L))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        verifyNoInteractions(eventos);
+    }
+
+    @Test
+    void testParchearTicketSoloCambiaCamposPresentes() throws Exception {
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.save(ticket)).thenReturn(ticket);
+
+        Ticket resultado = ticketService.parchearTicket(1L,
+            objectMapper.readTree("{\"id\":5,\"estadoTicket\":\"PROGRESO\",\"asignadoA\":null}"), null);
+
+        assertThat(resultado.getId()).isEqualTo(1L);
+        assertThat(resultado.getEstadoTicket()).isEqualTo(EstadoTicket.PROGRESO);
+        assertThat(resultado.getAsignadoA()).isNull();
+        assertThat(resultado.getTitulo()).isEqualTo("Ticket 1");
+    }
+
+    @Test
+    void testParchearTicketRechazaBorrarCampoObligatorio() throws Exception {
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+
+        assertThatThrownBy(() -> ticketService.parchearTicket(1L, objectMapper.readTree("{\"titulo\":null}"), null))
+            .isInstanceOf(SolicitudInvalidaException.class);
+        verify(ticketRepository, never()).save(any(Ticket.class));
+    }
+
+    @Test
+    void testEstadoNuloEsUnaSolicitudInvalida() throws Exception {
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+        ticketActualizado.setEstadoTicket(null);
+
+        assertThatThrownBy(() -> ticketService.actualizarTicket(1L, ticketActualizado, null))
+            .isInstanceOf(SolicitudInvalidaException.class);
+        assertThatThrownBy(() -> ticketService.parchearTicket(1L, objectMapper.readTree("{\"estadoTicket\":null}"), null))
+            .isInstanceOf(SolicitudInvalidaException.class);
+        verify(ticketRepository, never()).save(any(Ticket.class));
     }
 
     @Test
@@ -143,20 +379,93 @@ public class TicketServiceTest {
 
         // Simulo que no lo encuentra en BD
         when(ticketRepository.findById(999L)).thenReturn(Optional.empty());
-        // Al salvar, devuelvo tal cual el objeto que recibe
-        when(ticketRepository.save(any(Ticket.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Ejecuto la operación
-        Ticket resultado = ticketService.actualizarTicket(999L, ticketToUpdate);
+        Ticket resultado = ticketService.actualizarTicket(999L, ticketToUpdate, null);
 
-        // Compruebo que entra en el elseGet: asigna el ID y salva
-        assertThat(resultado).isNotNull();
-        assertThat(resultado.getId()).isEqualTo(999L);
-        assertThat(resultado.getTitulo()).isEqualTo("Título Nuevo");
+        // Ya no se inserta un ticket nuevo: el controlador responde 404
+        assertThat(resultado).isNull();
 
         // Verificaciones de interacción
         verify(ticketRepository, times(1)).findById(999L);
-        verify(ticketRepository, times(1)).save(ticketToUpdate);
+        verify(ticketRepository, never()).save(any(Ticket.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testActualizarTicketConVersionObsoleta() {
+        ticket.setVersion(3L);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+
+        assertThatThrownBy(() -> ticketService.actualizarTicket(1L, ticketActualizado, 2L))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(ticketRepository, never()).save(any(Ticket.class));
+    }
+
+    @Test
+    void testTransicionarTicket() {
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.save(ticket)).thenReturn(ticket);
+
+        Ticket resultado = ticketService.transicionarTicket(1L, EstadoTicket.ASIGNADO, null);
+
+        assertThat(resultado.getEstadoTicket()).isEqualTo(EstadoTicket.ASIGNADO);
+        assertThat(resultado.getEstadoDesde()).isNotNull();
+        ArgumentCaptor<TicketEvento> evento = ArgumentCaptor.forClass(TicketEvento.class);
+        verify(eventos).publishEvent(evento.capture());
+        assertThat(evento.getValue().tipo()).isEqualTo(TicketEvento.Tipo.TRANSICION);
+        assertThat(evento.getValue().anterior().getEstadoTicket()).isEqualTo(EstadoTicket.ABIERTO);
+    }
+
+    @Test
+    void testTransicionarTicketNoPermitida() {
+        ticket.setEstadoTicket(EstadoTicket.CERRADO);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+
+        assertThatThrownBy(() -> ticketService.transicionarTicket(1L, EstadoTicket.PROGRESO, null))
+            .isInstanceOf(TransicionInvalidaException.class);
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verifyNoInteractions(eventos);
+    }
+
+    @Test
+    void testTicketFinalizadoNoSeReabre() {
+        ticket.setEstadoTicket(EstadoTicket.FINALIZADO);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+
+        assertThatThrownBy(() -> ticketService.transicionarTicket(1L, EstadoTicket.PROGRESO, null))
+            .isInstanceOf(TransicionInvalidaException.class);
+        verify(ticketRepository, never()).save(any(Ticket.class));
+    }
+
+    @Test
+    void testActualizarTicketNoPuedeSaltarseLaMaquinaDeEstados() {
+        ticket.setEstadoTicket(EstadoTicket.ASIGNADO);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+
+        // ASIGNADO -> CERRADO no esta permitido
+        assertThatThrownBy(() -> ticketService.actualizarTicket(1L, ticketActualizado, null))
+            .isInstanceOf(TransicionInvalidaException.class);
+        verify(ticketRepository, never()).save(any(Ticket.class));
+    }
+
+    @Test
+    void testAsignarTicketConVersionObsoleta() {
+        // el UPDATE condicionado a la version 2 no encuentra fila, pero el ticket existe
+        when(ticketRepository.actualizarAsignadoA(eq(1L), eq("Usuario2"), eq(2L), any(Instant.class))).thenReturn(0);
+        when(ticketRepository.existsById(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> ticketService.asignarTicket(1L, "Usuario2", 2L))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(ticketRepository, never()).findById(1L);
+        verifyNoInteractions(eventos);
+    }
+
+    @Test
+    void testBuscarCamposTicketsRechazaCamposDesconocidos() {
+        assertThatThrownBy(() -> ticketService.buscarCamposTickets(
+                List.of("titulo", "contrasena"), null, null, null, null, null, 10))
+            .isInstanceOf(SolicitudInvalidaException.class);
+        verify(ticketRepository, never()).buscarCampos(any(), any(), anyInt());
+    }
+
+}